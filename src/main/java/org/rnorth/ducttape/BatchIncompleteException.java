@@ -0,0 +1,37 @@
+package org.rnorth.ducttape;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indicates that some items in a batch were still failing when retries stopped. Holds the results for the items
+ * which did succeed, so that they need not be processed again. The cause is the last exception thrown, if any.
+ */
+public class BatchIncompleteException extends RuntimeException {
+
+    private final Map<?, ?> results;
+    private final List<?> failedItems;
+
+    public BatchIncompleteException(@NotNull String message, @NotNull Map<?, ?> results, @NotNull List<?> failedItems, @Nullable Exception exception) {
+        super(message, exception);
+        this.results = results;
+        this.failedItems = failedItems;
+    }
+
+    /**
+     * @return results for the items which succeeded, keyed by item
+     */
+    public Map<?, ?> getResults() {
+        return results;
+    }
+
+    /**
+     * @return the items which had not succeeded
+     */
+    public List<?> getFailedItems() {
+        return failedItems;
+    }
+}
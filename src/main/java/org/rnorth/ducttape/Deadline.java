@@ -0,0 +1,190 @@
+package org.rnorth.ducttape;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A point in time by which a piece of work, including any nested calls it makes, must be finished.
+ *
+ * While a deadline is in effect (see {@link #call(Callable)}), the timeout, retry, rate limiter and circuit breaker
+ * utilities in this library clamp their own timeouts to the time remaining, and skip work that would start after the
+ * deadline has passed. {@link org.rnorth.ducttape.timeouts.Timeouts} and {@link org.rnorth.ducttape.unreliables.Unreliables}
+ * also put a deadline into effect for the lambdas they run, so nested calls automatically share the outer budget.
+ *
+ * Deadlines are measured using {@link System#nanoTime()}. A deadline is also handed to lambdas passed as a
+ * {@link DeadlineCallable}, so that long-running work can check it, or size its own I/O timeouts to fit.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    // Longer durations are treated as this long, so that adding one to System.nanoTime() cannot overflow
+    private static final long MAX_DURATION_NANOS = Long.MAX_VALUE / 2;
+
+    private final long deadlineNanos;
+    private final Deadline parent;
+    private volatile boolean cancelled;
+
+    private Deadline(final long deadlineNanos, @Nullable final Deadline parent) {
+        this.deadlineNanos = deadlineNanos;
+        this.parent = parent;
+    }
+
+    /**
+     * Obtain a deadline a given time from now.
+     *
+     * @param duration how long until the deadline
+     * @param timeUnit time unit for the duration
+     * @return a new deadline
+     */
+    public static Deadline after(final long duration, @NotNull final TimeUnit timeUnit) {
+        return new Deadline(deadlineAfter(duration, timeUnit), null);
+    }
+
+    /**
+     * Obtain a deadline a given time from now, for work nested within the deadline in effect for the current thread
+     * (if any). The new deadline is no later than the current one, and expires if the current one is cancelled.
+     *
+     * @param duration how long until the deadline
+     * @param timeUnit time unit for the duration
+     * @return a new deadline
+     */
+    public static Deadline nested(final long duration, @NotNull final TimeUnit timeUnit) {
+        final Deadline current = CURRENT.get();
+        final long deadlineNanos = deadlineAfter(duration, timeUnit);
+        if (current == null) {
+            return new Deadline(deadlineNanos, null);
+        }
+        return new Deadline(current.deadlineNanos - deadlineNanos < 0 ? current.deadlineNanos : deadlineNanos, current);
+    }
+
+    private static long deadlineAfter(final long duration, @NotNull final TimeUnit timeUnit) {
+        // A negative duration is a deadline which has already passed
+        return System.nanoTime() + Math.max(Math.min(timeUnit.toNanos(duration), MAX_DURATION_NANOS), 0);
+    }
+
+    /**
+     * @return the deadline in effect for the current thread, or null if there is none
+     */
+    @Nullable
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Work out how long a call may take, given the timeout it asked for and the deadline in effect for the current
+     * thread (if any).
+     *
+     * @param timeout  the timeout requested for the call
+     * @param timeUnit time unit for the timeout
+     * @return the smaller of the requested timeout and the time remaining before the current deadline, in nanoseconds
+     * @throws DeadlineExceededException if the current deadline has already expired, so the call should not be started
+     */
+    public static long clampToCurrent(final long timeout, @NotNull final TimeUnit timeUnit) {
+        final long timeoutNanos = timeUnit.toNanos(timeout);
+
+        final Deadline current = CURRENT.get();
+        if (current == null) {
+            return timeoutNanos;
+        }
+
+        final long remaining = current.deadlineNanos - System.nanoTime();
+        if (remaining <= 0 || current.isExpired()) {
+            throw new DeadlineExceededException("Deadline expired before the call was started", null);
+        }
+        return Math.min(timeoutNanos, remaining);
+    }
+
+    /**
+     * Fail fast if the deadline in effect for the current thread (if any) has already expired.
+     *
+     * @throws DeadlineExceededException if the current deadline has expired
+     */
+    public static void checkCurrent() {
+        final Deadline current = CURRENT.get();
+        if (current != null && current.isExpired()) {
+            throw new DeadlineExceededException("Deadline expired before the call was started", null);
+        }
+    }
+
+    /**
+     * @param timeUnit time unit for the result
+     * @return how long remains until this deadline, or zero if it has expired
+     */
+    public long timeRemaining(@NotNull final TimeUnit timeUnit) {
+        if (isCancelled()) {
+            return 0;
+        }
+        return timeUnit.convert(Math.max(deadlineNanos - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return true if this deadline has passed or been cancelled
+     */
+    public boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0 || isCancelled();
+    }
+
+    /**
+     * Cancel this deadline, so that it (and any deadlines nested within it) are treated as expired from now on. This
+     * is used to tell work which is still in progress that its result is no longer wanted, e.g. because its caller
+     * has been interrupted.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    private boolean isCancelled() {
+        return cancelled || (parent != null && parent.isCancelled());
+    }
+
+    /**
+     * Call a lambda expression with this deadline in effect for the current thread. If an earlier deadline is already
+     * in effect, that one continues to apply instead.
+     *
+     * @param lambda the lambda expression to call
+     * @param <T>    return type of the lambda
+     * @return the result of the lambda expression
+     * @throws Exception rethrown from the lambda
+     */
+    public <T> T call(@NotNull final Callable<T> lambda) throws Exception {
+        final Deadline previous = enter();
+        try {
+            return lambda.call();
+        } finally {
+            exit(previous);
+        }
+    }
+
+    /**
+     * Run a lambda expression with this deadline in effect for the current thread. If an earlier deadline is already
+     * in effect, that one continues to apply instead.
+     *
+     * @param lambda the lambda expression to run
+     */
+    public void run(@NotNull final Runnable lambda) {
+        final Deadline previous = enter();
+        try {
+            lambda.run();
+        } finally {
+            exit(previous);
+        }
+    }
+
+    private Deadline enter() {
+        final Deadline previous = CURRENT.get();
+        CURRENT.set(previous != null && previous.deadlineNanos - deadlineNanos < 0 ? previous : this);
+        return previous;
+    }
+
+    private static void exit(@Nullable final Deadline previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.rnorth.ducttape;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A lambda expression which is told the deadline it must finish by. Long-running work can check the deadline, and
+ * abandon what it is doing once the deadline has expired (or been cancelled because the caller gave up), rather than
+ * running on after its result is no longer wanted. It can also use the time remaining to set its own I/O timeouts.
+ *
+ * @param <T> return type of the lambda
+ */
+@FunctionalInterface
+public interface DeadlineCallable<T> {
+
+    /**
+     * @param deadline the deadline by which the call should complete
+     * @return the result of the call
+     * @throws Exception if the call fails
+     */
+    T call(@NotNull Deadline deadline) throws Exception;
+}
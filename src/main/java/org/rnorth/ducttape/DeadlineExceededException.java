@@ -0,0 +1,15 @@
+package org.rnorth.ducttape;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Indicates that work was skipped because the {@link Deadline} in effect had expired, or would expire before the work
+ * could be done.
+ */
+public class DeadlineExceededException extends TimeoutException {
+
+    public DeadlineExceededException(@NotNull String message, @Nullable Exception exception) {
+        super(message, exception);
+    }
+}
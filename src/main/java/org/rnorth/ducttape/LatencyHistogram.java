@@ -0,0 +1,117 @@
+package org.rnorth.ducttape;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.rnorth.ducttape.Preconditions.check;
+
+/**
+ * Lock-free histogram of recent latencies, used to estimate percentiles. Recording a sample is cheap enough to do on
+ * every call.
+ *
+ * Values below 4 are counted exactly. Above that, each power of two is split into four buckets, so recorded values
+ * are accurate to within 25%, and percentiles are reported as the upper bound of the bucket they fall in. Once the
+ * window size is reached, every count is halved, so that older samples gradually lose their influence.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicBoolean decaying = new AtomicBoolean();
+    private final long window;
+
+    /**
+     * Create a new histogram.
+     *
+     * @param window roughly how many recent samples to consider
+     */
+    public LatencyHistogram(final long window) {
+
+        check("window must be greater than zero", window > 0);
+
+        this.window = window;
+    }
+
+    /**
+     * Record a sample. This is lock-free, and does not allocate.
+     *
+     * @param value the value to record, e.g. a latency in nanoseconds
+     */
+    public void record(final long value) {
+        counts.incrementAndGet(indexOf(Math.max(value, 0)));
+        if (total.incrementAndGet() >= window && decaying.compareAndSet(false, true)) {
+            try {
+                decay();
+            } finally {
+                decaying.set(false);
+            }
+        }
+    }
+
+    /**
+     * @return the number of samples currently counted
+     */
+    public long getCount() {
+        return total.get();
+    }
+
+    /**
+     * @param percentile the percentile to estimate, between 0 and 100
+     * @return the estimated value at the given percentile, or zero if nothing has been recorded
+     */
+    public long getValueAtPercentile(final double percentile) {
+        long sum = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            sum += counts.get(i);
+        }
+        if (sum == 0) {
+            return 0;
+        }
+
+        final long target = Math.max(1, (long) Math.ceil(percentile / 100 * sum));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return upperBoundOf(i);
+            }
+        }
+        // Counts changed while we were reading them
+        return upperBoundOf(BUCKETS - 1);
+    }
+
+    private void decay() {
+        long removed = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long current;
+            do {
+                current = counts.get(i);
+            } while (current > 0 && !counts.compareAndSet(i, current, current / 2));
+            removed += current - current / 2;
+        }
+        total.addAndGet(-removed);
+    }
+
+    private static int indexOf(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int magnitude = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBoundOf(final int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final int shift = index / SUB_BUCKETS - 1;
+        final long lowerBound = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,14 @@
+package org.rnorth.ducttape;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Indicates that retries were abandoned because an UnreliableSupplier failed with an exception which the retry policy
+ * does not allow to be retried. The cause is the exception that was thrown.
+ */
+public class RetryAbortedException extends RuntimeException {
+
+    public RetryAbortedException(@NotNull String message, @NotNull Exception exception) {
+        super(message, exception);
+    }
+}
@@ -0,0 +1,13 @@
+package org.rnorth.ducttape;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Indicates that a retry was refused because a shared retry budget had been used up.
+ */
+public class RetryBudgetExhaustedException extends RetryCountExceededException {
+
+    public RetryBudgetExhaustedException(@NotNull String message, @NotNull Exception exception) {
+        super(message, exception);
+    }
+}
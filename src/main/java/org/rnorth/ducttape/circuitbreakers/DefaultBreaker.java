@@ -1,6 +1,8 @@
 package org.rnorth.ducttape.circuitbreakers;
 
 import org.jetbrains.annotations.NotNull;
+import org.rnorth.ducttape.Deadline;
+import org.rnorth.ducttape.DeadlineExceededException;
 
 import java.util.Optional;
 import java.util.concurrent.Callable;
@@ -27,12 +29,15 @@ class DefaultBreaker implements Breaker {
 
     @Override
     public void tryDo(@NotNull final Runnable tryIfAlive, @NotNull final Runnable runOnFirstFailure, @NotNull final Runnable runIfBroken) {
-        if (isBroken()) {
+        if (isBroken() || isDeadlineExpired()) {
             runIfBroken.run();
         } else {
             try {
                 tryIfAlive.run();
                 setState(State.OK);
+            } catch (DeadlineExceededException e) {
+                // Work nested within the call gave up at the deadline, which says nothing about the component
+                runIfBroken.run();
             } catch (Exception e) {
                 setState(State.BROKEN);
                 setLastFailure(timeSource.getTimeMillis());
@@ -54,13 +59,16 @@ class DefaultBreaker implements Breaker {
 
     @Override
     public <T> T tryGet(@NotNull final Callable<T> tryIfAlive, @NotNull final Runnable runOnFirstFailure, @NotNull final Supplier<T> getIfBroken) {
-        if (isBroken()) {
+        if (isBroken() || isDeadlineExpired()) {
             return getIfBroken.get();
         } else {
             try {
                 T callResult = tryIfAlive.call();
                 setState(State.OK);
                 return callResult;
+            } catch (DeadlineExceededException e) {
+                // Work nested within the call gave up at the deadline, which says nothing about the component
+                return getIfBroken.get();
             } catch (Exception e) {
                 setState(State.BROKEN);
                 setLastFailure(timeSource.getTimeMillis());
@@ -91,6 +99,15 @@ class DefaultBreaker implements Breaker {
         return broken && notAutoResetYet;
     }
 
+    /**
+     * There is no point calling through once the current deadline has passed, but it says nothing about the health of
+     * the protected component, so the fallback is used without tripping the breaker.
+     */
+    private static boolean isDeadlineExpired() {
+        final Deadline deadline = Deadline.current();
+        return deadline != null && deadline.isExpired();
+    }
+
     private void setState(@NotNull final State state) {
         this.stateStore.setState(state);
     }
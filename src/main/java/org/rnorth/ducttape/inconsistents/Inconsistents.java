@@ -1,6 +1,9 @@
 package org.rnorth.ducttape.inconsistents;
 
 import org.jetbrains.annotations.NotNull;
+import org.rnorth.ducttape.Deadline;
+import org.rnorth.ducttape.DeadlineCallable;
+import org.rnorth.ducttape.TimeoutException;
 import org.rnorth.ducttape.unreliables.Unreliables;
 
 import java.util.concurrent.Callable;
@@ -40,36 +43,67 @@ public class Inconsistents {
 
         long consistentTimeInMillis = TimeUnit.MILLISECONDS.convert(consistentTime, timeUnit);
 
-        return Unreliables.retryUntilSuccess(totalTimeout, timeUnit, () -> {
-            T value = lambda.call();
-
-            boolean valueIsSame = value == recentValue[0] || (value != null && value.equals(recentValue[0]));
-
-            if (valueIsSame) {
-                long now = System.currentTimeMillis();
-                long timeSinceFirstValue = now - firstRecentValueTime[0];
-
-                if (timeSinceFirstValue > bestRun[0]) {
-                    bestRun[0] = timeSinceFirstValue;
-                    bestRunValue[0] = value;
+        try {
+            return Unreliables.retryUntilSuccess(totalTimeout, timeUnit, () -> {
+                T value = lambda.call();
+
+                boolean valueIsSame = value == recentValue[0] || (value != null && value.equals(recentValue[0]));
+
+                if (valueIsSame) {
+                    long now = System.currentTimeMillis();
+                    long timeSinceFirstValue = now - firstRecentValueTime[0];
+
+                    synchronized (bestRun) {
+                        if (timeSinceFirstValue > bestRun[0]) {
+                            bestRun[0] = timeSinceFirstValue;
+                            bestRunValue[0] = value;
+                        }
+                    }
+
+                    if (timeSinceFirstValue > consistentTimeInMillis) {
+                        return value;
+                    }
+                } else {
+                    // Reset everything and see if the next call yields the same result as this time
+                    recentValue[0] = value;
+                    firstRecentValueTime[0] = System.currentTimeMillis();
                 }
 
-                if (timeSinceFirstValue > consistentTimeInMillis) {
-                    return value;
-                }
-            } else {
-                // Reset everything and see if the next call yields the same result as this time
-                recentValue[0] = value;
-                firstRecentValueTime[0] = System.currentTimeMillis();
+                throw NotYetConsistentException.INSTANCE;
+            });
+        } catch (TimeoutException e) {
+            if (e.getCause() != NotYetConsistentException.INSTANCE) {
+                throw e;
             }
 
             long timeSinceStart = System.currentTimeMillis() - start;
 
-            if (bestRun[0] > 0) {
-                throw new InconsistentResultsException(timeSinceStart, bestRunValue[0], bestRun[0]);
-            } else {
-                throw new ResultsNeverConsistentException(timeSinceStart);
+            // The last sample may still be running on another thread
+            synchronized (bestRun) {
+                if (bestRun[0] > 0) {
+                    throw new TimeoutException(e.getMessage(), new InconsistentResultsException(timeSinceStart, bestRunValue[0], bestRun[0]));
+                } else {
+                    throw new TimeoutException(e.getMessage(), new ResultsNeverConsistentException(timeSinceStart));
+                }
             }
-        });
+        }
+    }
+
+    /**
+     * Retry invocation of a supplier repeatedly until it returns a consistent result for a sufficient time period,
+     * passing it the overall deadline. A slow call can check the deadline and stop early once the total timeout has
+     * passed, rather than running on after its result is no longer wanted.
+     *
+     * @param consistentTime how long the result should be consistent for before it is returned
+     * @param totalTimeout how long in total to wait for stabilisation to occur
+     * @param timeUnit time unit for time intervals
+     * @param lambda a supplier which should be called
+     * @param <T> the return type of the supplier
+     * @return the result of the supplier if it returned a consistent result for the specified interval
+     * @see #retryUntilConsistent(int, int, TimeUnit, Callable)
+     */
+    public static <T> T retryUntilConsistent(final int consistentTime, final int totalTimeout, @NotNull final TimeUnit timeUnit, @NotNull final DeadlineCallable<T> lambda) {
+        // Samples are taken with the overall deadline in effect
+        return retryUntilConsistent(consistentTime, totalTimeout, timeUnit, () -> lambda.call(Deadline.current()));
     }
 }
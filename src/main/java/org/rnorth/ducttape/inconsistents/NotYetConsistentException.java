@@ -0,0 +1,16 @@
+package org.rnorth.ducttape.inconsistents;
+
+/**
+ * Signals that sampled results were not yet consistent, so that the retry loop samples again.
+ *
+ * A single instance is shared, with no stack trace, so that sampling does not allocate an exception per attempt. The
+ * exception describing the inconsistency is only built on timeout.
+ */
+final class NotYetConsistentException extends RuntimeException {
+
+    static final NotYetConsistentException INSTANCE = new NotYetConsistentException();
+
+    private NotYetConsistentException() {
+        super("Results not yet consistent", null, false, false);
+    }
+}
@@ -3,24 +3,56 @@ package org.rnorth.ducttape.ratelimits;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.rnorth.ducttape.Preconditions.check;
 
 /**
- * A rate limiter that uses a simple 'run every n millis' strategy to achieve constant throughput.
+ * A rate limiter that uses a simple 'run every n nanos' strategy to achieve constant throughput.
+ *
+ * Each invocation reserves the next free slot, so invocations are evenly spaced however many threads share the rate
+ * limiter. At very high rates, permits may be granted in batches: every invocation whose slot falls within the same
+ * batch may proceed once the batch starts, so that only one wait is needed per batch rather than one per invocation.
  */
 class ConstantThroughputRateLimiter extends RateLimiter {
 
     private final long timeBetweenInvocations;
+    private final long batchDuration;
+    private final long epoch;
+    private final AtomicLong nextFreeSlot;
 
-    ConstantThroughputRateLimiter(@NotNull Integer rate, @NotNull TimeUnit perTimeUnit) {
-        this.timeBetweenInvocations = perTimeUnit.toMillis(1) / rate;
-    }
+    ConstantThroughputRateLimiter(@NotNull Integer rate, @NotNull TimeUnit perTimeUnit, int batchSize) {
 
-    @Override
-    protected long getWaitBeforeNextInvocation() {
+        check("rate must be greater than zero", rate > 0);
+        check("batch size must be greater than zero", batchSize > 0);
 
-        long timeToNextAllowed = (lastInvocation + timeBetweenInvocations) - System.currentTimeMillis();
+        this.timeBetweenInvocations = Math.max(perTimeUnit.toNanos(1) / rate, 1);
+        this.batchDuration = timeBetweenInvocations * batchSize;
+        this.epoch = System.nanoTime();
+        this.nextFreeSlot = new AtomicLong(epoch);
+    }
 
-        // Clamp wait time to 0<
-        return Math.max(timeToNextAllowed, 0);
+    @Override
+    protected long reservePermits(final int permits, final long maxWaitNanos) {
+
+        while (true) {
+            final long now = System.nanoTime();
+            final long current = nextFreeSlot.get();
+
+            // Slots which passed unused are not carried forward, so an idle period does not allow a burst
+            final long slot = current - now > 0 ? current : now;
+
+            // Batches are aligned to a fixed grid, so no more than one batch of invocations falls within any batch duration
+            final long dueAt = batchDuration == timeBetweenInvocations ? slot : slot - (slot - epoch) % batchDuration;
+
+            // Clamp wait time to 0<
+            final long waitNanos = Math.max(dueAt - now, 0);
+            if (waitNanos > maxWaitNanos) {
+                return -1;
+            }
+            if (nextFreeSlot.compareAndSet(current, slot + timeBetweenInvocations * permits)) {
+                return waitNanos;
+            }
+        }
     }
 }
@@ -0,0 +1,28 @@
+package org.rnorth.ducttape.ratelimits;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.rnorth.ducttape.Preconditions.check;
+
+/**
+ * Base class for rate limiters which work out how long to wait before the next invocation in milliseconds, as rate
+ * limiters written against earlier versions of {@link RateLimiter} did. Only one permit may be acquired at a time.
+ */
+public abstract class MillisecondRateLimiter extends RateLimiter {
+
+    /**
+     * Work out how long to wait before the next invocation, and reserve it.
+     *
+     * @return how long to wait, in milliseconds
+     */
+    protected abstract long getWaitBeforeNextInvocation();
+
+    @Override
+    protected final long reservePermits(final int permits, final long maxWaitNanos) {
+
+        check("this rate limiter can only acquire one permit at a time", permits == 1);
+
+        final long waitNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(getWaitBeforeNextInvocation()), 0);
+        return waitNanos <= maxWaitNanos ? waitNanos : -1;
+    }
+}
@@ -1,27 +1,49 @@
 package org.rnorth.ducttape.ratelimits;
 
 import org.jetbrains.annotations.NotNull;
+import org.rnorth.ducttape.Deadline;
+import org.rnorth.ducttape.DeadlineExceededException;
+import org.rnorth.ducttape.timeouts.TimeoutHandle;
+import org.rnorth.ducttape.timeouts.Timeouts;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.rnorth.ducttape.Preconditions.check;
 
 /**
  * Base class for rate limiters. Use RateLimiterBuilder to build new instances.
+ *
+ * If a {@link Deadline} is in effect and would expire before the rate limit allows a call, a DeadlineExceededException is
+ * thrown straight away rather than waiting.
  */
 public abstract class RateLimiter {
 
+    // Parking can overshoot by tens of microseconds, so spin for the last part of a wait
+    private static final long SPIN_THRESHOLD_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
     protected long lastInvocation;
 
     /**
-     * Invoke a lambda function, with Thread.sleep() being called to limit the execution rate if needed.
+     * Invoke a lambda function, with the calling thread waiting to limit the execution rate if needed.
      * @param lambda a Runnable lamda function to invoke
+     * @throws RuntimeException wrapping an InterruptedException if the thread is interrupted while waiting; the
+     * thread's interrupt status is restored
      */
     public void doWhenReady(@NotNull final Runnable lambda) {
 
         // Wait before proceeding, if needed
-        long waitBeforeNextInvocation = getWaitBeforeNextInvocation();
         try {
-            Thread.sleep(waitBeforeNextInvocation);
-        } catch (InterruptedException ignored) { }
+            acquireBeforeDeadline();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the rate limit", e);
+        }
 
         try {
             lambda.run();
@@ -32,20 +54,18 @@ public abstract class RateLimiter {
 
     /**
      *
-     * Invoke a lambda function and get the result, with Thread.sleep() being called to limit the execution rate
+     * Invoke a lambda function and get the result, with the calling thread waiting to limit the execution rate
      * if needed.
      * @param lambda a Callable lamda function to invoke
      * @param <T> return type of the lamda
+     * @throws InterruptedException if the thread is interrupted while waiting
      * @throws Exception rethrown from lambda
      * @return result of the lambda call
      */
     public <T> T getWhenReady(@NotNull final Callable<T> lambda) throws Exception {
 
         // Wait before proceeding, if needed
-        long waitBeforeNextInvocation = getWaitBeforeNextInvocation();
-        try {
-            Thread.sleep(waitBeforeNextInvocation);
-        } catch (InterruptedException ignored) { }
+        acquireBeforeDeadline();
 
         try {
             return lambda.call();
@@ -54,5 +74,182 @@ public abstract class RateLimiter {
         }
     }
 
-    protected abstract long getWaitBeforeNextInvocation();
+    /**
+     * Acquire a permit asynchronously. No thread is blocked while waiting; the delay is tracked by the shared timer
+     * used by {@link Timeouts#newTimeoutOffTimerThread(long, TimeUnit, Runnable)}.
+     *
+     * @return a future which completes, on the common fork/join pool, once the permit is available
+     */
+    public CompletableFuture<Void> acquireAsync() {
+        return getWhenReadyAsync(() -> null);
+    }
+
+    /**
+     * Invoke a lambda function asynchronously, on the common fork/join pool, once the rate limit allows it.
+     *
+     * @param lambda a Callable lamda function to invoke
+     * @param <T> return type of the lamda
+     * @return a future which completes with the result of the lambda call
+     * @see #getWhenReadyAsync(Callable, Executor)
+     */
+    public <T> CompletableFuture<T> getWhenReadyAsync(@NotNull final Callable<T> lambda) {
+        return getWhenReadyAsync(lambda, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Invoke a lambda function asynchronously, on the given executor, once the rate limit allows it. No thread is
+     * blocked while waiting; the delay is tracked by the shared timer used by
+     * {@link Timeouts#newTimeoutOffTimerThread(long, TimeUnit, Runnable)}, so any number of callers may be queued. The
+     * lambda is never run on the timer thread, even if the executor runs it directly.
+     *
+     * If a {@link Deadline} is in effect and would expire before the rate limit allows the call, the returned future
+     * completes exceptionally with a DeadlineExceededException straight away. If the returned future is cancelled
+     * before the call is made, the call is skipped; the permit it reserved is not given back.
+     *
+     * @param lambda   a Callable lamda function to invoke
+     * @param executor executor to invoke the lambda on
+     * @param <T> return type of the lamda
+     * @return a future which completes with the result of the lambda call, or exceptionally with its exception
+     */
+    public <T> CompletableFuture<T> getWhenReadyAsync(@NotNull final Callable<T> lambda, @NotNull final Executor executor) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+
+        final Deadline deadline = Deadline.current();
+        final long waitNanos = reservePermits(1, deadline == null ? Long.MAX_VALUE : deadline.timeRemaining(TimeUnit.NANOSECONDS) - 1);
+        if (waitNanos < 0) {
+            result.completeExceptionally(new DeadlineExceededException("Deadline would expire before the rate limit allows this call", null));
+            return result;
+        }
+
+        final Runnable invocation = () -> {
+            if (result.isDone()) {
+                // Cancelled, or otherwise completed, while waiting for the executor
+                return;
+            }
+            try {
+                result.complete(lambda.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                lastInvocation = System.currentTimeMillis();
+            }
+        };
+
+        if (waitNanos > 0) {
+            // The executor may run the lambda directly, so keep that off the timer thread
+            final TimeoutHandle handle = Timeouts.newTimeoutOffTimerThread(waitNanos, TimeUnit.NANOSECONDS, () -> execute(executor, invocation, result));
+            result.whenComplete((value, failure) -> handle.cancel());
+        } else {
+            execute(executor, invocation, result);
+        }
+        return result;
+    }
+
+    /**
+     * Acquire a permit if one is available straight away, without waiting.
+     *
+     * @return true if a permit was acquired, false if the rate limit does not allow a call now
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    /**
+     * Acquire a number of permits if they are available straight away, without waiting.
+     *
+     * @param permits the number of permits to acquire
+     * @return true if the permits were acquired, false if the rate limit does not allow them now
+     */
+    public boolean tryAcquire(final int permits) {
+
+        check("permits must be greater than zero", permits > 0);
+
+        if (reservePermits(permits, 0) < 0) {
+            return false;
+        }
+        lastInvocation = System.currentTimeMillis();
+        return true;
+    }
+
+    /**
+     * Acquire a number of permits, waiting if needed, but only if they will be available within the given timeout.
+     * If they will not be, false is returned straight away rather than waiting. The timeout is also limited by the
+     * {@link Deadline} in effect, if any.
+     *
+     * @param permits  the number of permits to acquire
+     * @param timeout  the longest time to wait
+     * @param timeUnit time unit for the timeout
+     * @return true if the permits were acquired, false if the rate limit would not allow them within the timeout
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public boolean tryAcquire(final int permits, final long timeout, @NotNull final TimeUnit timeUnit) throws InterruptedException {
+
+        check("permits must be greater than zero", permits > 0);
+
+        long maxWaitNanos = Math.max(timeUnit.toNanos(timeout), 0);
+        final Deadline deadline = Deadline.current();
+        if (deadline != null) {
+            maxWaitNanos = Math.min(maxWaitNanos, deadline.timeRemaining(TimeUnit.NANOSECONDS));
+        }
+
+        final long waitNanos = reservePermits(permits, maxWaitNanos);
+        if (waitNanos < 0) {
+            return false;
+        }
+        pause(waitNanos);
+        lastInvocation = System.currentTimeMillis();
+        return true;
+    }
+
+    /**
+     * Reserve a number of permits, as long as they will be available within the given time. If they will not be,
+     * nothing is reserved. Rate limiters which only work out a wait in milliseconds, one permit at a time, may extend
+     * {@link MillisecondRateLimiter} instead.
+     *
+     * @param permits      the number of permits to reserve
+     * @param maxWaitNanos the longest time the caller is prepared to wait, in nanoseconds
+     * @return how long to wait until the permits are due, in nanoseconds, or -1 if nothing was reserved
+     */
+    protected abstract long reservePermits(int permits, long maxWaitNanos);
+
+    private static void execute(@NotNull final Executor executor, @NotNull final Runnable invocation, @NotNull final CompletableFuture<?> result) {
+        try {
+            executor.execute(invocation);
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private void acquireBeforeDeadline() throws InterruptedException {
+        final Deadline deadline = Deadline.current();
+
+        final long waitNanos = reservePermits(1, deadline == null ? Long.MAX_VALUE : deadline.timeRemaining(TimeUnit.NANOSECONDS) - 1);
+        if (waitNanos < 0) {
+            throw new DeadlineExceededException("Deadline would expire before the rate limit allows this call", null);
+        }
+        pause(waitNanos);
+    }
+
+    /**
+     * Wait for the given time. Waits which are too short to park for accurately are finished by spinning.
+     */
+    private static void pause(final long waitNanos) throws InterruptedException {
+        if (waitNanos <= 0) {
+            return;
+        }
+
+        final long resumeAt = System.nanoTime() + waitNanos;
+        long remaining = waitNanos;
+        while (remaining > 0) {
+            if (remaining > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            } else {
+                Thread.yield();
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            remaining = resumeAt - System.nanoTime();
+        }
+    }
 }
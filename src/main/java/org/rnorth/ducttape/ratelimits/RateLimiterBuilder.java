@@ -12,6 +12,8 @@ public class RateLimiterBuilder {
     private Integer invocations;
     private TimeUnit perTimeUnit;
     private RateLimiterStrategy strategy;
+    private int burstSize = 1;
+    private int batchSize = 1;
 
     private RateLimiterBuilder() { }
 
@@ -41,7 +43,81 @@ public class RateLimiterBuilder {
      * @return the builder
      */
     public RateLimiterBuilder withConstantThroughput() {
+        return withConstantThroughput(1);
+    }
+
+    /**
+     * Configure the rate limiter to use a constant throughput strategy for rate limiting, granting permits in batches.
+     * Each batch of invocations may proceed together, so at very high rates only one wait is needed per batch rather
+     * than one per invocation, while the average rate is unchanged.
+     * @param batchSize the number of invocations in each batch
+     * @return the builder
+     */
+    public RateLimiterBuilder withConstantThroughput(final int batchSize) {
+        check("batch size must be greater than zero", batchSize > 0);
+
         this.strategy = RateLimiterStrategy.CONSTANT_THROUGHPUT;
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Configure the rate limiter to use a token bucket strategy for rate limiting, allowing no bursts above the rate.
+     * @return the builder
+     */
+    public RateLimiterBuilder withTokenBucket() {
+        return withTokenBucket(1);
+    }
+
+    /**
+     * Configure the rate limiter to use a token bucket strategy for rate limiting. Up to the given number of
+     * invocations may happen at once after a quiet period, as long as the average stays within the rate.
+     * @param capacity  the number of invocations which may happen at once
+     * @return the builder
+     */
+    public RateLimiterBuilder withTokenBucket(final int capacity) {
+        check("capacity must be greater than zero", capacity > 0);
+
+        this.strategy = RateLimiterStrategy.TOKEN_BUCKET;
+        this.burstSize = capacity;
+        return this;
+    }
+
+    /**
+     * Configure the rate limiter to use the generic cell rate algorithm (GCRA) for rate limiting. Invocations are
+     * spaced evenly at the rate, but up to the given number may happen at once after a quiet period.
+     *
+     * GCRA's theoretical arrival time is the same state as the token bucket's empty time, and makes the same decisions,
+     * so this is equivalent to {@link #withTokenBucket(int)} with the burst size as the capacity.
+     * @param burstSize the number of invocations which may happen at once
+     * @return the builder
+     */
+    public RateLimiterBuilder withGcra(final int burstSize) {
+        check("burst size must be greater than zero", burstSize > 0);
+
+        return withTokenBucket(burstSize);
+    }
+
+    /**
+     * Configure the rate limiter to allow up to the rate's number of invocations within any sliding window of the rate's
+     * time period, so that the whole quota may be used in a burst. The time of each invocation in the window is kept,
+     * so memory use grows with the number of invocations allowed per window, and rates above 100,000 invocations per
+     * window are rejected when the rate limiter is built; use {@link #withSlidingWindowCounter()} for those.
+     * @return the builder
+     */
+    public RateLimiterBuilder withSlidingWindowLog() {
+        this.strategy = RateLimiterStrategy.SLIDING_WINDOW_LOG;
+        return this;
+    }
+
+    /**
+     * Configure the rate limiter to allow approximately the rate's number of invocations within any sliding window of
+     * the rate's time period, so that the whole quota may be used in a burst. Only counts for the current and previous
+     * fixed windows are kept, so memory use is constant.
+     * @return the builder
+     */
+    public RateLimiterBuilder withSlidingWindowCounter() {
+        this.strategy = RateLimiterStrategy.SLIDING_WINDOW_COUNTER;
         return this;
     }
 
@@ -55,13 +131,24 @@ public class RateLimiterBuilder {
         check("A rate limit strategy must be set", strategy != null);
 
         if (strategy == RateLimiterStrategy.CONSTANT_THROUGHPUT) {
-            return new ConstantThroughputRateLimiter(invocations, perTimeUnit);
+            return new ConstantThroughputRateLimiter(invocations, perTimeUnit, batchSize);
+        } else if (strategy == RateLimiterStrategy.TOKEN_BUCKET) {
+            return new TokenBucketRateLimiter(invocations, perTimeUnit, burstSize);
+        } else if (strategy == RateLimiterStrategy.SLIDING_WINDOW_LOG) {
+            check("rate is too high for a sliding window log; use a sliding window counter instead",
+                  invocations <= SlidingWindowLogRateLimiter.MAX_RATE);
+            return new SlidingWindowLogRateLimiter(invocations, perTimeUnit);
+        } else if (strategy == RateLimiterStrategy.SLIDING_WINDOW_COUNTER) {
+            return new SlidingWindowCounterRateLimiter(invocations, perTimeUnit);
         } else {
             throw new IllegalStateException();
         }
     }
 
     private enum RateLimiterStrategy {
-        CONSTANT_THROUGHPUT
+        CONSTANT_THROUGHPUT,
+        TOKEN_BUCKET,
+        SLIDING_WINDOW_LOG,
+        SLIDING_WINDOW_COUNTER
     }
 }
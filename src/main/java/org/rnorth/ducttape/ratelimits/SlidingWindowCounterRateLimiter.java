@@ -0,0 +1,101 @@
+package org.rnorth.ducttape.ratelimits;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.rnorth.ducttape.Preconditions.check;
+
+/**
+ * A rate limiter that approximates a sliding window using counters for the current and previous fixed windows, so
+ * the whole quota may be used in a burst while only a few fields are needed.
+ *
+ * The number of invocations in the sliding window is estimated by assuming those in the previous fixed window were
+ * evenly spread, and counting the part of it which still overlaps the sliding window. Invocations which must wait are
+ * counted at the time they are due, and reservations are made in order of their due time.
+ */
+class SlidingWindowCounterRateLimiter extends RateLimiter {
+
+    private final int limit;
+    private final long window;
+
+    // Guarded by this
+    private long windowStart;
+    private int previousCount;
+    private int currentCount;
+    private long lastDueAt;
+
+    SlidingWindowCounterRateLimiter(@NotNull Integer rate, @NotNull TimeUnit perTimeUnit) {
+
+        check("rate must be greater than zero", rate > 0);
+
+        this.limit = rate;
+        this.window = perTimeUnit.toNanos(1);
+        this.windowStart = System.nanoTime();
+        this.lastDueAt = windowStart;
+    }
+
+    @Override
+    protected synchronized long reservePermits(final int permits, final long maxWaitNanos) {
+
+        check("permits must not be more than are allowed in the window", permits <= limit);
+
+        final long now = System.nanoTime();
+
+        // Work on copies, so that nothing changes if the permits will not be due in time
+        long start = windowStart;
+        int previous = previousCount;
+        int current = currentCount;
+        long dueAt = lastDueAt - now > 0 ? lastDueAt : now;
+
+        while (true) {
+            // Move the fixed windows along to the candidate time
+            final long windowsPassed = (dueAt - start) / window;
+            if (windowsPassed > 0) {
+                previous = windowsPassed == 1 ? current : 0;
+                current = 0;
+                start += windowsPassed * window;
+            }
+
+            final int available = limit - current - permits;
+            if (available < 0) {
+                // Not allowed until the next fixed window
+                dueAt = start + window;
+                continue;
+            }
+
+            final long overlap = window - (dueAt - start);
+            final long maxOverlap = maxOverlap(previous, available);
+            if (overlap <= maxOverlap) {
+                break;
+            }
+            // Allowed once enough of the previous window has slid out; this is always later than the current candidate
+            dueAt = start + window - maxOverlap;
+        }
+
+        final long waitNanos = dueAt - now;
+        if (waitNanos > maxWaitNanos) {
+            return -1;
+        }
+        windowStart = start;
+        previousCount = previous;
+        currentCount = current + permits;
+        lastDueAt = dueAt;
+        return waitNanos;
+    }
+
+    /**
+     * Work out how much of the previous window may still overlap the sliding window, for its estimated invocations to
+     * fit in the space available: the largest overlap for which previous * overlap / window &lt;= available. Integer
+     * arithmetic is used throughout, so that the answer is exact and cannot overflow.
+     */
+    private long maxOverlap(final int previous, final int available) {
+        if (previous <= available) {
+            return window;
+        }
+        // available * window / previous, split up so that no intermediate product can overflow
+        final long quotient = window / previous;
+        final long remainder = window % previous;
+        return available * quotient + available * remainder / previous;
+    }
+}
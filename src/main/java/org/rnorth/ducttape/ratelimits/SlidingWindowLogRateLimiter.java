@@ -0,0 +1,66 @@
+package org.rnorth.ducttape.ratelimits;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.rnorth.ducttape.Preconditions.check;
+
+/**
+ * A rate limiter that allows up to the configured number of invocations within any window of the configured time
+ * period, so the whole quota may be used in a burst.
+ *
+ * The times of the most recent invocations are kept in a ring buffer with one slot per invocation allowed in the window,
+ * so memory use is fixed by the rate rather than growing with traffic. An invocation may go ahead once the invocation a
+ * whole quota before it has left the window. Rates above {@link #MAX_RATE} are rejected, since the log would be too
+ * large; {@link SlidingWindowCounterRateLimiter} needs constant memory at any rate.
+ *
+ * There is no separate burst size: the quota for a window is the burst, as that is what a sliding window limit means.
+ * A smaller burst with the same average rate is what {@link TokenBucketRateLimiter} provides.
+ */
+class SlidingWindowLogRateLimiter extends RateLimiter {
+
+    // Keeps the log to under a megabyte
+    static final int MAX_RATE = 100_000;
+
+    private final long window;
+    // Guarded by this
+    private final long[] log;
+    private int oldest;
+
+    SlidingWindowLogRateLimiter(@NotNull Integer rate, @NotNull TimeUnit perTimeUnit) {
+
+        check("rate must be greater than zero", rate > 0);
+
+        this.window = perTimeUnit.toNanos(1);
+        this.log = new long[rate];
+
+        // Start with an empty window
+        final long emptySince = System.nanoTime() - window;
+        for (int i = 0; i < rate; i++) {
+            log[i] = emptySince;
+        }
+    }
+
+    @Override
+    protected synchronized long reservePermits(final int permits, final long maxWaitNanos) {
+
+        check("permits must not be more than are allowed in the window", permits <= log.length);
+
+        final long now = System.nanoTime();
+
+        // Reservations are made in order of their due time, so the log is always sorted from the oldest slot onwards
+        final long lastToLeave = log[(oldest + permits - 1) % log.length] + window;
+        final long dueAt = lastToLeave - now > 0 ? lastToLeave : now;
+
+        final long waitNanos = dueAt - now;
+        if (waitNanos > maxWaitNanos) {
+            return -1;
+        }
+        for (int i = 0; i < permits; i++) {
+            log[oldest] = dueAt;
+            oldest = (oldest + 1) % log.length;
+        }
+        return waitNanos;
+    }
+}
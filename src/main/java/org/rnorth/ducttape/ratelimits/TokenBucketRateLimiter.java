@@ -0,0 +1,60 @@
+package org.rnorth.ducttape.ratelimits;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.rnorth.ducttape.Preconditions.check;
+
+/**
+ * A rate limiter that uses a token bucket, which is safe to share between many threads.
+ *
+ * Tokens are added at the configured rate, up to the bucket's capacity, and each invocation takes one. Rather than
+ * counting tokens, the bucket records the time at which it will be empty once every permit granted so far has been
+ * taken, so that granting a permit is a single compare-and-set. When the bucket is empty, permits are granted for
+ * future times, so that waiting callers are served in order without contending with each other again.
+ *
+ * The time at which the bucket will be empty is the theoretical arrival time of the generic cell rate algorithm (GCRA)
+ * shifted by the capacity, so this is also the rate limiter built for GCRA.
+ */
+class TokenBucketRateLimiter extends RateLimiter {
+
+    private final long nanosPerToken;
+    private final long capacityNanos;
+    private final AtomicLong emptyAt;
+
+    TokenBucketRateLimiter(@NotNull Integer rate, @NotNull TimeUnit perTimeUnit, int capacity) {
+
+        check("rate must be greater than zero", rate > 0);
+        check("capacity must be greater than zero", capacity > 0);
+
+        this.nanosPerToken = Math.max(perTimeUnit.toNanos(1) / rate, 1);
+        this.capacityNanos = nanosPerToken * capacity;
+        // Start with a full bucket
+        this.emptyAt = new AtomicLong(System.nanoTime() - capacityNanos);
+    }
+
+    /**
+     * Take tokens from the bucket, or reserve the next ones to be added.
+     */
+    @Override
+    protected long reservePermits(final int permits, final long maxWaitNanos) {
+        while (true) {
+            final long now = System.nanoTime();
+            final long current = emptyAt.get();
+
+            // Tokens do not accumulate beyond the capacity of the bucket
+            final long fullAt = now - capacityNanos;
+            final long next = (current - fullAt > 0 ? current : fullAt) + nanosPerToken * permits;
+
+            final long waitNanos = Math.max(next - now, 0);
+            if (waitNanos > maxWaitNanos) {
+                return -1;
+            }
+            if (emptyAt.compareAndSet(current, next)) {
+                return waitNanos;
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.rnorth.ducttape.timeouts;
+
+import org.jetbrains.annotations.NotNull;
+import org.rnorth.ducttape.LatencyHistogram;
+import org.rnorth.ducttape.TimeoutException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A timeout which adapts to the latencies actually observed, rather than being fixed in advance. Use
+ * {@link AdaptiveTimeoutBuilder} to build new instances.
+ *
+ * The latency of each call is recorded in a lock-free histogram, and the timeout is set to a percentile of recent
+ * latencies times a multiplier, kept between a minimum and a maximum. A call which times out is recorded as taking as
+ * long as it was allowed, so that the timeout grows again if latency rises. The maximum is used until enough calls
+ * have been observed. An instance should be shared by all calls to the same operation.
+ */
+public class AdaptiveTimeout {
+
+    // Use the maximum timeout until there are enough samples for a meaningful percentile
+    private static final int MIN_SAMPLES = 20;
+    // Recalculating the timeout means reading the whole histogram, so only do it periodically
+    private static final int RECALCULATE_INTERVAL = 16;
+
+    private final TimeLimiter timeLimiter;
+    private final double percentile;
+    private final double multiplier;
+    private final long minTimeoutNanos;
+    private final long maxTimeoutNanos;
+    private final LatencyHistogram latencies;
+
+    private final AtomicInteger samplesSinceRecalculation = new AtomicInteger();
+    private volatile long timeoutNanos;
+
+    AdaptiveTimeout(@NotNull final TimeLimiter timeLimiter, final double percentile, final double multiplier,
+                    final long minTimeoutNanos, final long maxTimeoutNanos, @NotNull final LatencyHistogram latencies) {
+        this.timeLimiter = timeLimiter;
+        this.percentile = percentile;
+        this.multiplier = multiplier;
+        this.minTimeoutNanos = minTimeoutNanos;
+        this.maxTimeoutNanos = maxTimeoutNanos;
+        this.latencies = latencies;
+        this.timeoutNanos = maxTimeoutNanos;
+    }
+
+    /**
+     * Execute a lambda expression with the current adaptive timeout. If it completes within the time, the result
+     * will be returned. If it does not complete within the time, a TimeoutException will be thrown.
+     * If it throws an exception, a RuntimeException wrapping that exception will be thrown.
+     *
+     * @param lambda supplier lambda expression (may throw checked exceptions)
+     * @param <T>    return type of the lambda
+     * @return the result of the successful lambda expression call
+     */
+    public <T> T getWithTimeout(@NotNull final Callable<T> lambda) {
+        final long start = System.nanoTime();
+        final T result;
+        try {
+            result = timeLimiter.getWithTimeoutNanos(timeoutNanos, lambda);
+        } catch (TimeoutException e) {
+            // The call took at least this long; without recording it the timeout could never grow past a slow-down
+            record(System.nanoTime() - start);
+            throw e;
+        }
+        record(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Execute a lambda expression with the current adaptive timeout. If it does not complete within the time, a
+     * TimeoutException will be thrown. If it throws an exception, a RuntimeException wrapping that exception will be
+     * thrown.
+     *
+     * @param lambda supplier lambda expression (may throw checked exceptions)
+     */
+    public void doWithTimeout(@NotNull final Runnable lambda) {
+        getWithTimeout(Executors.callable(lambda));
+    }
+
+    /**
+     * @param timeUnit time unit for the result
+     * @return the timeout which will be applied to the next call
+     */
+    public long getTimeout(@NotNull final TimeUnit timeUnit) {
+        return timeUnit.convert(timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void record(final long latencyNanos) {
+        latencies.record(latencyNanos);
+
+        if (samplesSinceRecalculation.incrementAndGet() >= RECALCULATE_INTERVAL) {
+            samplesSinceRecalculation.set(0);
+            if (latencies.getCount() >= MIN_SAMPLES) {
+                final double scaled = latencies.getValueAtPercentile(percentile) * multiplier;
+                timeoutNanos = (long) Math.max(minTimeoutNanos, Math.min(maxTimeoutNanos, scaled));
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.rnorth.ducttape.timeouts;
+
+import org.jetbrains.annotations.NotNull;
+import org.rnorth.ducttape.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.rnorth.ducttape.Preconditions.check;
+
+/**
+ * Builder for {@link AdaptiveTimeout} instances.
+ *
+ * By default, the timeout is twice the 99th percentile of recent calls.
+ */
+public class AdaptiveTimeoutBuilder {
+
+    // Roughly how many recent latencies are considered when estimating a percentile
+    private static final int LATENCY_WINDOW = 4096;
+
+    private TimeLimiter timeLimiter;
+    private double percentile = 99;
+    private double multiplier = 2;
+    private long minTimeoutNanos;
+    private long maxTimeoutNanos;
+
+    private AdaptiveTimeoutBuilder() { }
+
+    /**
+     * Obtain a new builder instance.
+     * @return a new builder
+     */
+    public static AdaptiveTimeoutBuilder newBuilder() {
+        return new AdaptiveTimeoutBuilder();
+    }
+
+    /**
+     * Set the percentile of recent latencies on which to base the timeout.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the builder
+     */
+    public AdaptiveTimeoutBuilder withPercentile(final double percentile) {
+
+        check("percentile must be between 0 and 100", percentile > 0 && percentile < 100);
+
+        this.percentile = percentile;
+        return this;
+    }
+
+    /**
+     * Set how much headroom to allow above the chosen percentile.
+     *
+     * @param multiplier the multiplier, at least 1
+     * @return the builder
+     */
+    public AdaptiveTimeoutBuilder withMultiplier(final double multiplier) {
+
+        check("multiplier must be at least 1", multiplier >= 1);
+
+        this.multiplier = multiplier;
+        return this;
+    }
+
+    /**
+     * Set the bounds for the timeout. The maximum is also used until enough calls have been observed.
+     *
+     * @param minTimeout the shortest timeout to apply
+     * @param maxTimeout the longest timeout to apply
+     * @param timeUnit   time unit for the timeouts
+     * @return the builder
+     */
+    public AdaptiveTimeoutBuilder withBounds(final long minTimeout, final long maxTimeout, @NotNull final TimeUnit timeUnit) {
+
+        check("min timeout must be greater than zero", minTimeout > 0);
+        check("max timeout must not be less than the min timeout", maxTimeout >= minTimeout);
+
+        this.minTimeoutNanos = timeUnit.toNanos(minTimeout);
+        this.maxTimeoutNanos = timeUnit.toNanos(maxTimeout);
+        return this;
+    }
+
+    /**
+     * Run calls with the given time limiter, instead of the default one used by {@link Timeouts}.
+     *
+     * @param timeLimiter the time limiter
+     * @return the builder
+     */
+    public AdaptiveTimeoutBuilder withTimeLimiter(@NotNull final TimeLimiter timeLimiter) {
+        this.timeLimiter = timeLimiter;
+        return this;
+    }
+
+    /**
+     * Build and obtain a configured adaptive timeout.
+     * @return the configured adaptive timeout instance
+     */
+    public AdaptiveTimeout build() {
+        check("timeout bounds must be set", maxTimeoutNanos > 0);
+
+        return new AdaptiveTimeout(timeLimiter != null ? timeLimiter : Timeouts.getDefaultTimeLimiter(), percentile, multiplier,
+                minTimeoutNanos, maxTimeoutNanos, new LatencyHistogram(LATENCY_WINDOW));
+    }
+}
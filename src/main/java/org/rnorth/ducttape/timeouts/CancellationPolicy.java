@@ -0,0 +1,22 @@
+package org.rnorth.ducttape.timeouts;
+
+/**
+ * What a {@link TimeLimiter} should do with a lambda that is still running when its timeout expires.
+ */
+public enum CancellationPolicy {
+
+    /**
+     * Leave the lambda to run to completion in the background.
+     */
+    NONE,
+
+    /**
+     * Cancel the lambda if it has not started yet, but leave it to run to completion if it has.
+     */
+    CANCEL,
+
+    /**
+     * Cancel the lambda if it has not started yet, and interrupt its thread if it has.
+     */
+    INTERRUPT
+}
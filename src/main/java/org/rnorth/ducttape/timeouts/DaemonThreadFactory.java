@@ -0,0 +1,34 @@
+package org.rnorth.ducttape.timeouts;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates uniquely numbered daemon threads for running timed lambdas and other background work.
+ */
+public class DaemonThreadFactory implements ThreadFactory {
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger(0);
+
+    private final String namePrefix;
+
+    DaemonThreadFactory() {
+        this("ducttape-");
+    }
+
+    /**
+     * @param namePrefix prefix for thread names, which is followed by a unique number
+     */
+    public DaemonThreadFactory(@NotNull String namePrefix) {
+        this.namePrefix = namePrefix;
+    }
+
+    @Override
+    public Thread newThread(@NotNull Runnable r) {
+        Thread thread = new Thread(r, namePrefix + THREAD_COUNTER.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
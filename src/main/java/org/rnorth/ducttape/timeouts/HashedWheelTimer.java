@@ -0,0 +1,249 @@
+package org.rnorth.ducttape.timeouts;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.rnorth.ducttape.Preconditions.check;
+
+/**
+ * A hashed wheel timer, which tracks the deadlines of many outstanding timeouts using a single thread.
+ *
+ * Each timeout is placed in one of a fixed number of buckets according to the tick in which it falls due. Arming and
+ * cancelling a timeout only touch that one bucket, so both are O(1) however many timeouts are outstanding, and the only
+ * allocation is the handle itself. Timeouts fire within one tick of their deadline.
+ *
+ * Tasks are run on the timer thread, so should be short and must not block (e.g. interrupting a thread or completing
+ * a future).
+ */
+final class HashedWheelTimer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HashedWheelTimer.class);
+    private static final long MAX_DELAY_NANOS = Long.MAX_VALUE / 4;
+
+    private final long tickNanos;
+    private final long startTime;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Thread workerThread;
+
+    private volatile long currentTick;
+
+    HashedWheelTimer(@NotNull final String threadName, final long tickDuration, @NotNull final TimeUnit tickUnit, final int ticksPerWheel) {
+
+        check("tick duration must be greater than zero", tickDuration > 0);
+        check("ticks per wheel must be a power of two", ticksPerWheel > 0 && Integer.bitCount(ticksPerWheel) == 1);
+
+        this.tickNanos = tickUnit.toNanos(tickDuration);
+        this.wheel = new Bucket[ticksPerWheel];
+        for (int i = 0; i < ticksPerWheel; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = ticksPerWheel - 1;
+        this.startTime = System.nanoTime();
+
+        this.workerThread = new Thread(this::run, threadName);
+        this.workerThread.setDaemon(true);
+        this.workerThread.start();
+    }
+
+    /**
+     * Arm a timeout.
+     *
+     * @param delay how long to wait before running the task
+     * @param unit  time unit for the delay
+     * @param task  task to run on the timer thread once the delay has elapsed
+     * @return a handle which may be used to cancel the timeout
+     */
+    TimeoutHandle newTimeout(final long delay, @NotNull final TimeUnit unit, @NotNull final Runnable task) {
+
+        // Cap very long delays, so that the deadline and the tick count cannot overflow
+        final long delayNanos = Math.max(Math.min(unit.toNanos(delay), MAX_DELAY_NANOS), 0);
+        final Entry entry = new Entry(this, System.nanoTime() + delayNanos, task);
+
+        if (pending.getAndIncrement() == 0) {
+            LockSupport.unpark(workerThread);
+        }
+
+        long targetTick = ticksUntil(entry.deadline);
+        while (true) {
+            final Bucket bucket = wheel[(int) (targetTick & mask)];
+            synchronized (bucket) {
+                // If the worker has already passed this bucket at or beyond our tick, the deadline is already
+                //  due, so aim for the next tick instead of waiting for a whole revolution of the wheel.
+                if (bucket.lastTick < targetTick) {
+                    bucket.add(entry);
+                    break;
+                }
+            }
+            targetTick = currentTick + 1;
+        }
+        return entry;
+    }
+
+    private long ticksUntil(final long deadline) {
+        final long elapsed = deadline - startTime;
+        return Math.max((elapsed + tickNanos - 1) / tickNanos, currentTick + 1);
+    }
+
+    private void run() {
+        long processedTick = 0;
+
+        //noinspection InfiniteLoopStatement
+        while (true) {
+            if (pending.get() == 0) {
+                // Nothing to do; sleep until a timeout is armed
+                LockSupport.park(this);
+            }
+
+            final long nextTickTime = startTime + (processedTick + 1) * tickNanos;
+            final long sleep = nextTickTime - System.nanoTime();
+            if (sleep > 0) {
+                LockSupport.parkNanos(this, sleep);
+                continue;
+            }
+
+            final long nowTick = (System.nanoTime() - startTime) / tickNanos;
+            // Each bucket only needs to be visited once to catch up after an idle period
+            processedTick = Math.max(processedTick, nowTick - wheel.length);
+
+            while (processedTick < nowTick) {
+                processedTick++;
+                currentTick = processedTick;
+                expire(wheel[(int) (processedTick & mask)], processedTick);
+            }
+        }
+    }
+
+    private void expire(@NotNull final Bucket bucket, final long tick) {
+        final long now = System.nanoTime();
+
+        Entry expired = null;
+        synchronized (bucket) {
+            bucket.lastTick = tick;
+
+            Entry entry = bucket.head;
+            while (entry != null) {
+                final Entry next = entry.next;
+                if (entry.state != Entry.PENDING) {
+                    // Cancelled concurrently; the canceller will also try to unlink, which is harmless
+                    bucket.remove(entry);
+                } else if (entry.deadline - now <= 0 && entry.transition(Entry.EXPIRED)) {
+                    bucket.remove(entry);
+                    entry.next = expired;
+                    expired = entry;
+                }
+                entry = next;
+            }
+        }
+
+        // Run tasks outside of the bucket lock so that arming threads are never held up by them
+        while (expired != null) {
+            final Entry next = expired.next;
+            expired.next = null;
+            pending.decrementAndGet();
+            try {
+                expired.task.run();
+            } catch (Throwable e) {
+                // Keep going whatever is thrown, as the timer thread is shared by every timeout
+                LOGGER.warn("Timeout task threw an exception", e);
+            }
+            expired = next;
+        }
+    }
+
+    private static final class Entry implements TimeoutHandle {
+
+        static final int PENDING = 0;
+        static final int EXPIRED = 1;
+        static final int CANCELLED = 2;
+
+        private static final AtomicIntegerFieldUpdater<Entry> STATE = AtomicIntegerFieldUpdater.newUpdater(Entry.class, "state");
+
+        final HashedWheelTimer timer;
+        final long deadline;
+        final Runnable task;
+
+        volatile int state = PENDING;
+        volatile Bucket bucket;
+        Entry next;
+        Entry prev;
+
+        Entry(@NotNull final HashedWheelTimer timer, final long deadline, @NotNull final Runnable task) {
+            this.timer = timer;
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        boolean transition(final int newState) {
+            return STATE.compareAndSet(this, PENDING, newState);
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!transition(CANCELLED)) {
+                return false;
+            }
+            timer.pending.decrementAndGet();
+
+            final Bucket owner = this.bucket;
+            if (owner != null) {
+                synchronized (owner) {
+                    owner.remove(this);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+    }
+
+    /**
+     * Doubly-linked list of entries falling due in the same slot of the wheel. Guarded by its own monitor.
+     */
+    private static final class Bucket {
+
+        long lastTick = -1;
+        Entry head;
+
+        void add(@NotNull final Entry entry) {
+            entry.bucket = this;
+            entry.next = head;
+            if (head != null) {
+                head.prev = entry;
+            }
+            head = entry;
+        }
+
+        void remove(@NotNull final Entry entry) {
+            if (entry.bucket != this) {
+                return;
+            }
+            if (entry.prev != null) {
+                entry.prev.next = entry.next;
+            } else {
+                head = entry.next;
+            }
+            if (entry.next != null) {
+                entry.next.prev = entry.prev;
+            }
+            entry.prev = null;
+            entry.next = null;
+            entry.bucket = null;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package org.rnorth.ducttape.timeouts;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.rnorth.ducttape.Deadline;
+import org.rnorth.ducttape.DeadlineCallable;
+import org.rnorth.ducttape.DeadlineExceededException;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.rnorth.ducttape.Preconditions.check;
+
+/**
+ * Executes lambda expressions with a timeout, using a configured executor. Use {@link TimeLimiterBuilder} to build
+ * new instances, or {@link Timeouts} for a shared, unbounded default.
+ *
+ * Counters are kept for the number of lambdas that are running, waiting to run, or were rejected because the
+ * executor was saturated, and for lambdas which are still running after their caller has timed out.
+ */
+public class TimeLimiter {
+
+    private final ExecutorService executorService;
+    private final CancellationPolicy cancellationPolicy;
+
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicInteger queuedCount = new AtomicInteger();
+    private final AtomicInteger overrunCount = new AtomicInteger();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder timedOutCount = new LongAdder();
+
+    TimeLimiter(@NotNull final ExecutorService executorService, @NotNull final CancellationPolicy cancellationPolicy) {
+        this.executorService = executorService;
+        this.cancellationPolicy = cancellationPolicy;
+    }
+
+    /**
+     * Execute a lambda expression with a timeout. If it completes within the time, the result will be returned.
+     * If it does not complete within the time, a TimeoutException will be thrown.
+     * If it throws an exception, a RuntimeException wrapping that exception will be thrown.
+     * If the executor is saturated, a RejectedExecutionException will be thrown without waiting.
+     * If a {@link Deadline} is in effect, the timeout is reduced to the time remaining before it, and the lambda is
+     * not started at all if it has already expired.
+     *
+     * @param timeout  how long to wait
+     * @param timeUnit time unit for time interval
+     * @param lambda   supplier lambda expression (may throw checked exceptions)
+     * @param <T>      return type of the lambda
+     * @return the result of the successful lambda expression call
+     */
+    public <T> T getWithTimeout(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final Callable<T> lambda) {
+
+        check("timeout must be greater than zero", timeout > 0);
+
+        return getWithTimeoutNanos(timeUnit.toNanos(timeout), lambda, null);
+    }
+
+    /**
+     * Execute a lambda expression with a timeout, as for {@link #getWithTimeout(int, TimeUnit, Callable)}, and run a
+     * cleanup action if it times out. The cleanup action is run on the calling thread, after the lambda has been
+     * cancelled according to this time limiter's {@link CancellationPolicy}, and before the TimeoutException is thrown;
+     * for example, it can close a connection which the lambda was using.
+     *
+     * @param timeout  how long to wait
+     * @param timeUnit time unit for time interval
+     * @param lambda   supplier lambda expression (may throw checked exceptions)
+     * @param cleanup  action to run if the call times out
+     * @param <T>      return type of the lambda
+     * @return the result of the successful lambda expression call
+     */
+    public <T> T getWithTimeout(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final Callable<T> lambda, @NotNull final Runnable cleanup) {
+
+        check("timeout must be greater than zero", timeout > 0);
+
+        return getWithTimeoutNanos(timeUnit.toNanos(timeout), lambda, cleanup);
+    }
+
+    <T> T getWithTimeoutNanos(final long timeout, @NotNull final Callable<T> lambda) {
+        return getWithTimeoutNanos(timeout, lambda, null);
+    }
+
+    private <T> T getWithTimeoutNanos(final long timeout, @NotNull final Callable<T> lambda, @Nullable final Runnable cleanup) {
+
+        final long timeoutNanos = Deadline.clampToCurrent(timeout, TimeUnit.NANOSECONDS);
+        final Deadline deadline = Deadline.nested(timeoutNanos, TimeUnit.NANOSECONDS);
+
+        return callFuture(timeoutNanos, deadline, submit(() -> deadline.call(lambda)), cleanup);
+    }
+
+    /**
+     * Execute a lambda expression with a timeout, passing it the deadline by which it must complete. The deadline is
+     * cancelled if the caller gives up, so a long-running lambda can check it and stop early.
+     *
+     * @param timeout  how long to wait
+     * @param timeUnit time unit for time interval
+     * @param lambda   supplier lambda expression (may throw checked exceptions)
+     * @param <T>      return type of the lambda
+     * @return the result of the successful lambda expression call
+     * @see #getWithTimeout(int, TimeUnit, Callable)
+     */
+    public <T> T getWithTimeout(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final DeadlineCallable<T> lambda) {
+        // The lambda is called with its deadline in effect
+        return getWithTimeout(timeout, timeUnit, () -> lambda.call(Deadline.current()));
+    }
+
+    /**
+     * Execute a lambda expression with a timeout. If it completes within the time, the result will be returned.
+     * If it does not complete within the time, a TimeoutException will be thrown.
+     * If it throws an exception, a RuntimeException wrapping that exception will be thrown.
+     * If the executor is saturated, a RejectedExecutionException will be thrown without waiting.
+     * If a {@link Deadline} is in effect, the timeout is reduced to the time remaining before it, and the lambda is
+     * not started at all if it has already expired.
+     *
+     * @param timeout  how long to wait
+     * @param timeUnit time unit for time interval
+     * @param lambda   supplier lambda expression (may throw checked exceptions)
+     */
+    public void doWithTimeout(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final Runnable lambda) {
+
+        check("timeout must be greater than zero", timeout > 0);
+
+        getWithTimeoutNanos(timeUnit.toNanos(timeout), Executors.callable(lambda));
+    }
+
+    /**
+     * Execute a lambda expression with a timeout, as for {@link #doWithTimeout(int, TimeUnit, Runnable)}, and run a
+     * cleanup action if it times out.
+     *
+     * @param timeout  how long to wait
+     * @param timeUnit time unit for time interval
+     * @param lambda   supplier lambda expression (may throw checked exceptions)
+     * @param cleanup  action to run if the call times out
+     * @see #getWithTimeout(int, TimeUnit, Callable, Runnable)
+     */
+    public void doWithTimeout(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final Runnable lambda, @NotNull final Runnable cleanup) {
+
+        check("timeout must be greater than zero", timeout > 0);
+
+        getWithTimeoutNanos(timeUnit.toNanos(timeout), Executors.callable(lambda), cleanup);
+    }
+
+    /**
+     * @return the number of lambdas currently running
+     */
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    /**
+     * @return the number of lambdas which have been submitted but have not started running yet
+     */
+    public int getQueuedCount() {
+        return queuedCount.get();
+    }
+
+    /**
+     * @return the total number of lambdas which were rejected because the executor was saturated
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /**
+     * @return the number of lambdas which are still running after their caller timed out
+     */
+    public int getOverrunCount() {
+        return overrunCount.get();
+    }
+
+    /**
+     * @return the total number of calls which have timed out
+     */
+    public long getTimedOutCount() {
+        return timedOutCount.sum();
+    }
+
+    private <T> TrackedTask<T> submit(@NotNull final Callable<T> lambda) {
+        final TrackedTask<T> task = new TrackedTask<>(lambda);
+        queuedCount.incrementAndGet();
+        try {
+            task.future = executorService.submit(task);
+            return task;
+        } catch (RejectedExecutionException e) {
+            queuedCount.decrementAndGet();
+            rejectedCount.increment();
+            throw e;
+        }
+    }
+
+    private <T> T callFuture(final long timeoutNanos, @NotNull final Deadline deadline, @NotNull final TrackedTask<T> task,
+                             @Nullable final Runnable cleanup) {
+        try {
+            return task.future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof DeadlineExceededException) {
+                // The lambda gave up because the deadline it shares with this call ran out, so this call timed out too
+                throw new org.rnorth.ducttape.TimeoutException((DeadlineExceededException) e.getCause());
+            }
+            // The cause of the ExecutionException is the actual exception that was thrown
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException | InterruptedException e) {
+            timedOutCount.increment();
+            // Let the lambda (and anything nested within it) know that its result is no longer wanted
+            deadline.cancel();
+            task.abandon();
+            if (cleanup != null) {
+                cleanup.run();
+            }
+            throw new org.rnorth.ducttape.TimeoutException(e);
+        }
+    }
+
+    /**
+     * Wraps a submitted lambda to keep the counters up to date as it moves from queued, to running, to done.
+     */
+    private final class TrackedTask<T> implements Callable<T> {
+
+        private final Callable<T> lambda;
+        private Future<T> future;
+
+        private boolean started;
+        private boolean done;
+        private boolean overrunning;
+
+        TrackedTask(@NotNull final Callable<T> lambda) {
+            this.lambda = lambda;
+        }
+
+        @Override
+        public T call() throws Exception {
+            synchronized (this) {
+                if (done) {
+                    // Abandoned and cancelled before it got the chance to start
+                    return null;
+                }
+                started = true;
+                queuedCount.decrementAndGet();
+                activeCount.incrementAndGet();
+            }
+            try {
+                return lambda.call();
+            } finally {
+                synchronized (this) {
+                    done = true;
+                    activeCount.decrementAndGet();
+                    if (overrunning) {
+                        overrunCount.decrementAndGet();
+                    }
+                }
+            }
+        }
+
+        void abandon() {
+            if (cancellationPolicy != CancellationPolicy.NONE) {
+                synchronized (this) {
+                    if (!started) {
+                        done = true;
+                        queuedCount.decrementAndGet();
+                    }
+                }
+                future.cancel(cancellationPolicy == CancellationPolicy.INTERRUPT);
+            }
+
+            synchronized (this) {
+                if (started && !done) {
+                    overrunning = true;
+                    overrunCount.incrementAndGet();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.rnorth.ducttape.timeouts;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.rnorth.ducttape.Preconditions.check;
+
+/**
+ * Builder for {@link TimeLimiter} instances.
+ *
+ * A bounded pool acts as a bulkhead: when a downstream component hangs, at most a fixed number of threads and queued
+ * lambdas can be tied up waiting for it, and further calls are rejected immediately.
+ */
+public class TimeLimiterBuilder {
+
+    private ExecutorService executorService;
+    private CancellationPolicy cancellationPolicy = CancellationPolicy.NONE;
+
+    private TimeLimiterBuilder() { }
+
+    /**
+     * Obtain a new builder instance.
+     * @return a new builder
+     */
+    public static TimeLimiterBuilder newBuilder() {
+        return new TimeLimiterBuilder();
+    }
+
+    /**
+     * Run lambdas on a pool with a fixed maximum number of threads and a bounded queue. Calls made when all threads
+     * are busy and the queue is full are rejected with a RejectedExecutionException.
+     *
+     * @param maxThreads  the maximum number of threads; idle threads are released after a short period
+     * @param maxQueued   the maximum number of lambdas waiting for a thread, which may be zero
+     * @return the builder
+     */
+    public TimeLimiterBuilder withBoundedPool(final int maxThreads, final int maxQueued) {
+
+        check("max threads must be greater than zero", maxThreads > 0);
+        check("max queued must not be negative", maxQueued >= 0);
+
+        final BlockingQueue<Runnable> queue = maxQueued == 0 ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(maxQueued);
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(maxThreads, maxThreads, 60L, TimeUnit.SECONDS, queue,
+                new DaemonThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+
+        this.executorService = pool;
+        return this;
+    }
+
+    /**
+     * Run lambdas on the provided executor. To get bulkhead behaviour, the executor should have bounded threads and a
+     * bounded queue, and reject tasks when saturated.
+     *
+     * @param executorService the executor to use
+     * @return the builder
+     */
+    public TimeLimiterBuilder withExecutor(@NotNull final ExecutorService executorService) {
+        this.executorService = executorService;
+        return this;
+    }
+
+    /**
+     * Run each lambda on a new virtual thread. Virtual threads are cheap enough that very large numbers of concurrent
+     * blocking calls can be guarded by timeouts, without the cost of a platform thread stack for each one.
+     *
+     * Virtual threads require Java 21 or later; on older JVMs this method throws an IllegalArgumentException.
+     *
+     * @return the builder
+     */
+    public TimeLimiterBuilder withVirtualThreads() {
+
+        check("virtual threads require Java 21 or later", VirtualThreads.isSupported());
+
+        this.executorService = VirtualThreads.newVirtualThreadPerTaskExecutor();
+        return this;
+    }
+
+    /**
+     * Configure what happens to a lambda which is still running when its timeout expires.
+     *
+     * If this method is <i>not</i> used, the default is {@link CancellationPolicy#NONE}: the lambda is left to run to
+     * completion in the background, as with {@link Timeouts}. A cleanup action for an individual call, such as closing
+     * the connection it was using, can be passed along with the lambda to
+     * {@link TimeLimiter#getWithTimeout(int, TimeUnit, java.util.concurrent.Callable, Runnable)}.
+     *
+     * @param cancellationPolicy the policy to apply
+     * @return the builder
+     */
+    public TimeLimiterBuilder withCancellationPolicy(@NotNull final CancellationPolicy cancellationPolicy) {
+        this.cancellationPolicy = cancellationPolicy;
+        return this;
+    }
+
+    /**
+     * Build and obtain a configured time limiter. A pool or executor must have been selected.
+     * @return the configured time limiter instance
+     */
+    public TimeLimiter build() {
+        check("An executor must be set", executorService != null);
+
+        return new TimeLimiter(executorService, cancellationPolicy);
+    }
+}
@@ -0,0 +1,24 @@
+package org.rnorth.ducttape.timeouts;
+
+/**
+ * Handle to a timeout which has been armed using {@link Timeouts#newTimeout(long, java.util.concurrent.TimeUnit, Runnable)}.
+ */
+public interface TimeoutHandle {
+
+    /**
+     * Cancel the timeout, so that its task will not be run.
+     *
+     * @return true if the timeout was cancelled, false if it had already expired or been cancelled
+     */
+    boolean cancel();
+
+    /**
+     * @return true if the timeout has expired and its task has been (or is being) run
+     */
+    boolean isExpired();
+
+    /**
+     * @return true if the timeout was cancelled before it expired
+     */
+    boolean isCancelled();
+}
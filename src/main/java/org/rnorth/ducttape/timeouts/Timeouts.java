@@ -1,28 +1,81 @@
 package org.rnorth.ducttape.timeouts;
 
 import org.jetbrains.annotations.NotNull;
+import org.rnorth.ducttape.Deadline;
+import org.rnorth.ducttape.DeadlineCallable;
+import org.rnorth.ducttape.DeadlineExceededException;
 
-import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import static org.rnorth.ducttape.Preconditions.check;
 
 /**
  * Utilities to time out on slow running code.
+ *
+ * The static methods share a single unbounded pool of daemon threads. Use {@link TimeLimiterBuilder} for a bounded
+ * alternative.
+ *
+ * Timeouts are reduced to fit within any {@link Deadline} that is in effect, and the lambda is run with a deadline
+ * in effect so that nested calls share the same budget.
  */
 public class Timeouts {
 
-    private static final ExecutorService EXECUTOR_SERVICE = Executors.newCachedThreadPool(new ThreadFactory() {
+    private static final TimeLimiter DEFAULT_LIMITER = new TimeLimiter(Executors.newCachedThreadPool(new DaemonThreadFactory()), CancellationPolicy.NONE);
 
-        final AtomicInteger threadCounter = new AtomicInteger(0);
+    private static final class TimerHolder {
+        static final HashedWheelTimer TIMER = new HashedWheelTimer("ducttape-timer", 5, TimeUnit.MILLISECONDS, 512);
+    }
 
-        @Override
-        public Thread newThread(@NotNull Runnable r) {
-            Thread thread = new Thread(r, "ducttape-" + threadCounter.getAndIncrement());
-            thread.setDaemon(true);
-            return thread;
-        }
-    });
+    /**
+     * Runs tasks handed off from the timer thread. This is kept separate from the common fork/join pool, so that timeouts
+     * are still delivered when that pool is saturated - which is often when they matter most.
+     */
+    private static final class CallbackExecutorHolder {
+        static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(2, new DaemonThreadFactory("ducttape-timeout-"));
+    }
+
+    /**
+     * @return the time limiter used by the static methods of this class, which may be used to inspect its counters
+     */
+    public static TimeLimiter getDefaultTimeLimiter() {
+        return DEFAULT_LIMITER;
+    }
+
+    /**
+     * Arm a timeout on the shared timer, which will run a task once a delay has elapsed unless it is cancelled first.
+     * Arming and cancelling are both O(1), so this is suitable for tracking deadlines for very many in-flight operations.
+     *
+     * The task is run on the shared timer thread, so it must be short and must not block - for example, interrupting
+     * a thread or completing a future.
+     *
+     * @param delay    how long to wait before running the task
+     * @param timeUnit time unit for the delay
+     * @param task     task to run once the delay has elapsed
+     * @return a handle which can be used to cancel the timeout
+     */
+    public static TimeoutHandle newTimeout(final long delay, @NotNull final TimeUnit timeUnit, @NotNull final Runnable task) {
+        return TimerHolder.TIMER.newTimeout(delay, timeUnit, task);
+    }
+
+    /**
+     * Arm a timeout on the shared timer, as for {@link #newTimeout(long, TimeUnit, Runnable)}, but run the task on a
+     * small dedicated pool of daemon threads rather than on the timer thread. Use this when the task completes a future,
+     * whose dependent stages may run arbitrary code, or hands work to an executor, which may run it directly.
+     *
+     * @param delay    how long to wait before running the task
+     * @param timeUnit time unit for the delay
+     * @param task     task to run once the delay has elapsed
+     * @return a handle which can be used to cancel the timeout
+     */
+    public static TimeoutHandle newTimeoutOffTimerThread(final long delay, @NotNull final TimeUnit timeUnit, @NotNull final Runnable task) {
+        return TimerHolder.TIMER.newTimeout(delay, timeUnit, () -> CallbackExecutorHolder.EXECUTOR.execute(task));
+    }
 
     /**
      * Execute a lambda expression with a timeout. If it completes within the time, the result will be returned.
@@ -36,11 +89,23 @@ public class Timeouts {
      * @return the result of the successful lambda expression call
      */
     public static <T> T getWithTimeout(final int timeout, final TimeUnit timeUnit, @NotNull final Callable<T> lambda) {
+        return DEFAULT_LIMITER.getWithTimeout(timeout, timeUnit, lambda);
+    }
 
-        check("timeout must be greater than zero", timeout > 0);
-
-        Future<T> future = EXECUTOR_SERVICE.submit(lambda);
-        return callFuture(timeout, timeUnit, future);
+    /**
+     * Execute a lambda expression with a timeout, passing it the deadline by which it must complete. The deadline is
+     * cancelled if the caller gives up (e.g. because it was interrupted), so a long-running lambda can check it and
+     * stop early, or use the time remaining to set its own I/O timeouts.
+     *
+     * @param timeout  how long to wait
+     * @param timeUnit time unit for time interval
+     * @param lambda   supplier lambda expression (may throw checked exceptions)
+     * @param <T>      return type of the lambda
+     * @return the result of the successful lambda expression call
+     * @see #getWithTimeout(int, TimeUnit, Callable)
+     */
+    public static <T> T getWithTimeout(final int timeout, final TimeUnit timeUnit, @NotNull final DeadlineCallable<T> lambda) {
+        return DEFAULT_LIMITER.getWithTimeout(timeout, timeUnit, lambda);
     }
 
     /**
@@ -53,21 +118,185 @@ public class Timeouts {
      * @param lambda   supplier lambda expression (may throw checked exceptions)
      */
     public static void doWithTimeout(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final Runnable lambda) {
+        DEFAULT_LIMITER.doWithTimeout(timeout, timeUnit, lambda);
+    }
+
+    /**
+     * Execute a lambda expression with a timeout, running it on the calling thread. If it completes within the time,
+     * the result will be returned. If it does not complete within the time, the calling thread is interrupted and a
+     * TimeoutException will be thrown once the lambda returns; the interrupt raised for the timeout is cleared
+     * beforehand, and an interrupt the calling thread already had is left in place.
+     * If it throws an exception, a RuntimeException wrapping that exception will be thrown.
+     *
+     * Unlike {@link #getWithTimeout(int, TimeUnit, Callable)}, this does not hand off to another thread, so
+     * ThreadLocal state is visible to the lambda. However, the lambda <i>must</i> respond to interruption for the
+     * timeout to take effect promptly.
+     *
+     * @param timeout  how long to wait
+     * @param timeUnit time unit for time interval
+     * @param lambda   supplier lambda expression (may throw checked exceptions)
+     * @param <T>      return type of the lambda
+     * @return the result of the successful lambda expression call
+     */
+    public static <T> T getWithTimeoutOnCallingThread(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final Callable<T> lambda) {
 
         check("timeout must be greater than zero", timeout > 0);
 
-        Future<?> future = EXECUTOR_SERVICE.submit(lambda);
-        callFuture(timeout, timeUnit, future);
+        final long timeoutNanos = Deadline.clampToCurrent(timeout, timeUnit);
+        final CallingThreadWatchdog watchdog = new CallingThreadWatchdog(Thread.currentThread());
+        final TimeoutHandle handle = newTimeout(timeoutNanos, TimeUnit.NANOSECONDS, watchdog);
+
+        T result = null;
+        Exception failure = null;
+        boolean timedOut;
+        try {
+            result = Deadline.nested(timeoutNanos, TimeUnit.NANOSECONDS).call(lambda);
+        } catch (Exception e) {
+            failure = e;
+        } finally {
+            timedOut = watchdog.finish(handle);
+        }
+
+        if (timedOut || failure instanceof DeadlineExceededException) {
+            throw new org.rnorth.ducttape.TimeoutException("Timeout waiting for result on calling thread", failure);
+        } else if (failure != null) {
+            throw new RuntimeException(failure);
+        }
+        return result;
+    }
+
+    /**
+     * Execute a lambda expression with a timeout, running it on the calling thread. If it does not complete within the
+     * time, the calling thread is interrupted and a TimeoutException will be thrown once the lambda returns; the
+     * interrupt raised for the timeout is cleared beforehand, and an interrupt the calling thread already had is left
+     * in place.
+     * If it throws an exception, a RuntimeException wrapping that exception will be thrown.
+     *
+     * @param timeout  how long to wait
+     * @param timeUnit time unit for time interval
+     * @param lambda   supplier lambda expression
+     * @see #getWithTimeoutOnCallingThread(int, TimeUnit, Callable)
+     */
+    public static void doWithTimeoutOnCallingThread(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final Runnable lambda) {
+        getWithTimeoutOnCallingThread(timeout, timeUnit, () -> {
+            lambda.run();
+            return null;
+        });
     }
 
-    private static <T> T callFuture(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final Future<T> future) {
+    /**
+     * Apply a timeout to an asynchronous result. The returned future completes with the same outcome as the given
+     * stage, unless the time limit is exceeded first, in which case it completes exceptionally with a TimeoutException.
+     * No thread is blocked while waiting; the deadline is tracked by the shared timer.
+     *
+     * On timeout, the given stage is not cancelled. Dependent stages registered on the returned future may be run
+     * on a thread belonging to the shared timer's small callback pool, so should not block for long.
+     *
+     * @param timeout  how long to wait
+     * @param timeUnit time unit for time interval
+     * @param stage    the asynchronous result to wait for
+     * @param <T>      type of the result
+     * @return a future which completes with the result, or with a TimeoutException
+     */
+    public static <T> CompletableFuture<T> withTimeout(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final CompletionStage<T> stage) {
+
+        check("timeout must be greater than zero", timeout > 0);
+
+        final CompletableFuture<T> result = new CompletableFuture<>();
+
+        final long timeoutNanos;
         try {
-            return future.get(timeout, timeUnit);
-        } catch (ExecutionException e) {
-            // The cause of the ExecutionException is the actual exception that was thrown
-            throw new RuntimeException(e.getCause());
-        } catch (TimeoutException | InterruptedException e) {
-            throw new org.rnorth.ducttape.TimeoutException(e);
+            timeoutNanos = Deadline.clampToCurrent(timeout, timeUnit);
+        } catch (DeadlineExceededException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        // Complete off the timer thread, so that dependent stages cannot hold it up
+        final TimeoutHandle handle = newTimeoutOffTimerThread(timeoutNanos, TimeUnit.NANOSECONDS, () -> {
+            result.completeExceptionally(new org.rnorth.ducttape.TimeoutException("Timeout waiting for asynchronous result", null));
+        });
+
+        stage.whenComplete((value, throwable) -> {
+            handle.cancel();
+            if (throwable != null) {
+                result.completeExceptionally(throwable);
+            } else {
+                result.complete(value);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Start an asynchronous operation and apply a timeout to its result. The returned future completes with the
+     * operation's outcome, unless the time limit is exceeded first, in which case it completes exceptionally with a
+     * TimeoutException. No thread is blocked while waiting.
+     *
+     * @param timeout     how long to wait
+     * @param timeUnit    time unit for time interval
+     * @param asyncLambda supplier lambda expression which starts the operation and returns its pending result
+     * @param <T>         type of the result
+     * @return a future which completes with the result, or with a TimeoutException
+     * @see #withTimeout(int, TimeUnit, CompletionStage)
+     */
+    public static <T> CompletableFuture<T> getWithTimeoutAsync(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final Supplier<? extends CompletionStage<T>> asyncLambda) {
+
+        check("timeout must be greater than zero", timeout > 0);
+
+        final CompletionStage<T> stage;
+        try {
+            Deadline.checkCurrent();
+            stage = asyncLambda.get();
+        } catch (RuntimeException e) {
+            final CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        return withTimeout(timeout, timeUnit, stage);
+    }
+
+    /**
+     * Interrupts a thread when its timeout expires, unless the thread has already finished its work.
+     */
+    private static final class CallingThreadWatchdog implements Runnable {
+
+        private final Thread thread;
+        private final boolean wasInterrupted;
+        private boolean finished;
+        private boolean timedOut;
+        private boolean interruptDelivered;
+
+        CallingThreadWatchdog(@NotNull final Thread thread) {
+            this.thread = thread;
+            this.wasInterrupted = thread.isInterrupted();
+        }
+
+        @Override
+        public synchronized void run() {
+            if (!finished) {
+                timedOut = true;
+                // An interrupt which is still pending will stop the lambda anyway, and is not ours to clear
+                if (!thread.isInterrupted()) {
+                    interruptDelivered = true;
+                    thread.interrupt();
+                }
+            }
+        }
+
+        synchronized boolean finish(@NotNull final TimeoutHandle handle) {
+            handle.cancel();
+            finished = true;
+            if (interruptDelivered) {
+                // Clear the interrupt we raised, so that it does not leak into the caller's later work
+                //noinspection ResultOfMethodCallIgnored
+                Thread.interrupted();
+            }
+            if (wasInterrupted) {
+                // The lambda may have consumed an interrupt the caller already had; put it back
+                thread.interrupt();
+            }
+            return timedOut;
         }
     }
 }
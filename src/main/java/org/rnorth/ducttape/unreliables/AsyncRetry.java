@@ -0,0 +1,173 @@
+package org.rnorth.ducttape.unreliables;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.rnorth.ducttape.Deadline;
+import org.rnorth.ducttape.RetryAbortedException;
+import org.rnorth.ducttape.RetryBudgetExhaustedException;
+import org.rnorth.ducttape.RetryCountExceededException;
+import org.rnorth.ducttape.TimeoutException;
+import org.rnorth.ducttape.timeouts.TimeoutHandle;
+import org.rnorth.ducttape.timeouts.Timeouts;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives a sequence of retry attempts without blocking any thread between them. Each attempt is run on an executor,
+ * and backoff delays and the overall timeout are tracked by the shared timer, so a thread is only in use while an
+ * attempt is actually running.
+ */
+final class AsyncRetry<T> {
+
+    private final Callable<T> lambda;
+    private final RetryPolicy retryPolicy;
+    private final Executor executor;
+    private final int tryLimit;
+    private final Deadline deadline;
+
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+    private volatile TimeoutHandle timeoutHandle;
+    private volatile Exception lastException;
+
+    private final long callStart = System.nanoTime();
+
+    // Only updated by attempts, which never overlap, while holding this instance's monitor, which timeouts also hold
+    private volatile int attempt;
+    private long delay;
+
+    private AsyncRetry(@NotNull final Callable<T> lambda, @NotNull final RetryPolicy retryPolicy, @NotNull final Executor executor,
+                       final int tryLimit, @Nullable final Deadline deadline) {
+        this.lambda = lambda;
+        this.retryPolicy = retryPolicy;
+        this.executor = executor;
+        this.tryLimit = tryLimit;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Start retrying until the lambda succeeds or the timeout expires.
+     */
+    static <T> CompletableFuture<T> withTimeout(final long timeoutNanos, @NotNull final RetryPolicy retryPolicy, @NotNull final Executor executor, @NotNull final Callable<T> lambda) {
+        return withDeadline(Deadline.nested(timeoutNanos, TimeUnit.NANOSECONDS), retryPolicy, executor, lambda);
+    }
+
+    /**
+     * Start retrying until the lambda succeeds or the deadline expires. The deadline may be shared with other calls.
+     */
+    static <T> CompletableFuture<T> withDeadline(@NotNull final Deadline deadline, @NotNull final RetryPolicy retryPolicy, @NotNull final Executor executor, @NotNull final Callable<T> lambda) {
+        final AsyncRetry<T> retry = new AsyncRetry<>(lambda, retryPolicy, executor, Integer.MAX_VALUE, deadline);
+        // Completing the future runs the caller's dependent stages, so keep that off the timer thread
+        retry.timeoutHandle = Timeouts.newTimeoutOffTimerThread(deadline.timeRemaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS, retry::onTimeout);
+        retry.submit();
+        return retry.result;
+    }
+
+    /**
+     * Start retrying until the lambda succeeds or the try limit is hit.
+     */
+    static <T> CompletableFuture<T> withTryLimit(final int tryLimit, @NotNull final RetryPolicy retryPolicy, @NotNull final Executor executor, @NotNull final Callable<T> lambda) {
+        final AsyncRetry<T> retry = new AsyncRetry<>(lambda, retryPolicy, executor, tryLimit, null);
+        retry.submit();
+        return retry.result;
+    }
+
+    private void submit() {
+        if (result.isDone()) {
+            return;
+        }
+        try {
+            executor.execute(this::attempt);
+        } catch (RejectedExecutionException e) {
+            complete(null, e);
+        }
+    }
+
+    private void attempt() {
+        if (result.isDone()) {
+            return;
+        }
+
+        final long attemptStart = retryPolicy.attemptStarted(attempt + 1);
+        T value = null;
+        Exception failure;
+        try {
+            value = deadline == null ? lambda.call() : deadline.call(lambda);
+            failure = retryPolicy.isRetryableResult(value) ? NotReadyException.INSTANCE : null;
+        } catch (Exception e) {
+            failure = e;
+        }
+
+        final long nextDelay;
+        // Held while reporting, so that an attempt which finishes after the timeout is neither reported nor retried
+        synchronized (this) {
+            if (result.isDone()) {
+                return;
+            }
+            if (failure == null) {
+                retryPolicy.attemptSucceeded(attempt + 1, attemptStart, callStart);
+                if (attempt == 0) {
+                    retryPolicy.recordFirstAttemptSuccess();
+                }
+                complete(value, null);
+                return;
+            }
+
+            lastException = failure;
+            retryPolicy.attemptFailed(++attempt, attemptStart, callStart, failure);
+            if (!retryPolicy.isRetryable(failure)) {
+                complete(null, new RetryAbortedException("Not retrying after non-retryable exception", failure));
+                return;
+            }
+
+            if (attempt >= tryLimit) {
+                complete(null, new RetryCountExceededException("Retry limit hit with exception", lastException));
+                return;
+            }
+            if (deadline != null && deadline.isExpired()) {
+                // Don't spend the retry budget on an attempt which would never run
+                onTimeout();
+                return;
+            }
+            if (!retryPolicy.tryRetry()) {
+                complete(null, new RetryBudgetExhaustedException("Retry budget exhausted", lastException));
+                return;
+            }
+            delay = retryPolicy.nextDelayNanos(attempt, delay);
+            nextDelay = delay;
+        }
+
+        if (nextDelay > 0) {
+            // The executor may run the attempt directly, so keep that off the timer thread
+            Timeouts.newTimeoutOffTimerThread(nextDelay, TimeUnit.NANOSECONDS, this::submit);
+        } else {
+            submit();
+        }
+    }
+
+    private synchronized void onTimeout() {
+        final Exception cause = lastException;
+        if (result.completeExceptionally(cause != null ?
+                new TimeoutException("Timeout waiting for result with exception", cause) :
+                new TimeoutException("Timeout waiting for result", null))) {
+            retryPolicy.gaveUp(attempt, callStart, cause);
+        }
+    }
+
+    private void complete(@Nullable final T value, @Nullable final Exception failure) {
+        final TimeoutHandle handle = timeoutHandle;
+        if (handle != null) {
+            handle.cancel();
+        }
+        if (failure != null) {
+            if (result.completeExceptionally(failure)) {
+                retryPolicy.gaveUp(attempt, callStart, lastException);
+            }
+        } else {
+            result.complete(value);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.rnorth.ducttape.unreliables;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A call which processes a batch of items at once, some of which may succeed while others fail. Used with
+ * {@link Unreliables#retryUntilAllSucceed(int, RetryPolicy, int, java.util.Collection, BatchCallable)}.
+ *
+ * @param <I> type of the items
+ * @param <R> type of the result for each item
+ */
+@FunctionalInterface
+public interface BatchCallable<I, R> {
+
+    /**
+     * Process a batch of items.
+     *
+     * @param items the items to process
+     * @return results for the items which succeeded, keyed by item. Any item missing from the map is treated as having
+     * failed, and will be retried.
+     * @throws Exception if the whole batch failed
+     */
+    Map<I, R> call(@NotNull List<I> items) throws Exception;
+}
@@ -0,0 +1,170 @@
+package org.rnorth.ducttape.unreliables;
+
+import org.jetbrains.annotations.NotNull;
+import org.rnorth.ducttape.BatchIncompleteException;
+import org.rnorth.ducttape.Deadline;
+import org.rnorth.ducttape.DeadlineExceededException;
+import org.rnorth.ducttape.RetryAbortedException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Processes a collection of items in batches, retrying only the items which failed. On each round, the items still
+ * outstanding (from whichever batches they were in) are gathered into new batches of up to the batch size.
+ *
+ * Progress is kept in fields, so that if the caller gives up on another thread (e.g. after a timeout) it can report
+ * the results obtained so far.
+ */
+final class BatchRetry<I, R> {
+
+    private final RetryPolicy retryPolicy;
+    private final int batchSize;
+    private final BatchCallable<I, R> lambda;
+
+    private final Map<I, R> results = Collections.synchronizedMap(new LinkedHashMap<>());
+    private volatile List<I> pending;
+    private volatile Exception lastException;
+    private volatile int attempt;
+    private final long callStart = System.nanoTime();
+    // Guarded by this, which is held while reporting to the retry policy
+    private boolean gaveUp;
+
+    BatchRetry(@NotNull final RetryPolicy retryPolicy, final int batchSize, @NotNull final Collection<I> items, @NotNull final BatchCallable<I, R> lambda) {
+        this.retryPolicy = retryPolicy;
+        this.batchSize = batchSize;
+        this.lambda = lambda;
+        this.pending = Collections.unmodifiableList(new ArrayList<>(new LinkedHashSet<>(items)));
+    }
+
+    /**
+     * Keep processing outstanding items until all have succeeded, the try limit is hit, or the deadline in effect
+     * (if any) expires.
+     *
+     * @return results for every item, keyed by item
+     * @throws InterruptedException if interrupted while backing off
+     */
+    Map<I, R> run(final int tryLimit) throws InterruptedException {
+        long delay = 0;
+
+        try {
+            while (!pending.isEmpty()) {
+                final Deadline deadline = Deadline.current();
+                if (deadline != null && deadline.isExpired()) {
+                    throw new DeadlineExceededException("Deadline expired before all items succeeded", incomplete("Some items did not succeed"));
+                }
+
+                final long attemptStart = retryPolicy.attemptStarted(attempt + 1);
+                // Only an exception from this round explains why this round's items failed
+                lastException = null;
+                final List<I> failed = processRound();
+                if (failed.isEmpty()) {
+                    synchronized (this) {
+                        // A round which finishes after the caller has given up is not reported
+                        if (!gaveUp) {
+                            retryPolicy.attemptSucceeded(attempt + 1, attemptStart, callStart);
+                            if (attempt == 0) {
+                                retryPolicy.recordFirstAttemptSuccess();
+                            }
+                        }
+                    }
+                    pending = Collections.emptyList();
+                    break;
+                }
+
+                pending = Collections.unmodifiableList(failed);
+                if (lastException == null) {
+                    lastException = NotReadyException.INSTANCE;
+                }
+                synchronized (this) {
+                    if (gaveUp) {
+                        throw new DeadlineExceededException("Deadline expired before all items succeeded", incomplete("Some items did not succeed"));
+                    }
+                    retryPolicy.attemptFailed(++attempt, attemptStart, callStart, lastException);
+                }
+                if (!retryPolicy.isRetryable(lastException)) {
+                    throw new RetryAbortedException("Not retrying after non-retryable exception", lastException);
+                }
+
+                if (attempt >= tryLimit) {
+                    throw new org.rnorth.ducttape.RetryCountExceededException("Retry limit hit with failed items", incomplete("Some items did not succeed"));
+                }
+                final Deadline current = Deadline.current();
+                if (current != null && current.isExpired()) {
+                    throw new DeadlineExceededException("Deadline expired before all items succeeded", incomplete("Some items did not succeed"));
+                }
+                if (!retryPolicy.tryRetry()) {
+                    throw new org.rnorth.ducttape.RetryBudgetExhaustedException("Retry budget exhausted", incomplete("Some items did not succeed"));
+                }
+                delay = retryPolicy.nextDelayNanos(attempt, delay);
+                Unreliables.backOff(delay);
+            }
+        } catch (RuntimeException | InterruptedException e) {
+            giveUp();
+            throw e;
+        }
+
+        synchronized (results) {
+            return new LinkedHashMap<>(results);
+        }
+    }
+
+    /**
+     * Report that the call has given up, unless that has already been reported. The caller uses this when it stops
+     * waiting for the retry loop, which may still be running on another thread.
+     */
+    synchronized void giveUp() {
+        if (!gaveUp) {
+            gaveUp = true;
+            retryPolicy.gaveUp(attempt, callStart, lastException);
+        }
+    }
+
+    /**
+     * @param message exception message
+     * @return an exception holding the progress made so far
+     */
+    BatchIncompleteException incomplete(@NotNull final String message) {
+        final Map<I, R> snapshot;
+        synchronized (results) {
+            snapshot = new LinkedHashMap<>(results);
+        }
+        return new BatchIncompleteException(message, snapshot, pending, lastException);
+    }
+
+    private List<I> processRound() {
+        final List<I> items = pending;
+        final List<I> failed = new ArrayList<>();
+
+        for (int from = 0; from < items.size(); from += batchSize) {
+            final List<I> batch = items.subList(from, Math.min(from + batchSize, items.size()));
+            final Map<I, R> batchResults;
+            try {
+                batchResults = lambda.call(batch);
+            } catch (Exception e) {
+                lastException = e;
+                if (!retryPolicy.isRetryable(e)) {
+                    // Give up straight away, rather than calling the remaining batches
+                    failed.addAll(items.subList(from, items.size()));
+                    return failed;
+                }
+                failed.addAll(batch);
+                continue;
+            }
+
+            for (I item : batch) {
+                if (batchResults != null && batchResults.containsKey(item)) {
+                    results.put(item, batchResults.get(item));
+                } else {
+                    failed.add(item);
+                }
+            }
+        }
+        return failed;
+    }
+}
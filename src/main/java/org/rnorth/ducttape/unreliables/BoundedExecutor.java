@@ -0,0 +1,83 @@
+package org.rnorth.ducttape.unreliables;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.rnorth.ducttape.Preconditions.check;
+
+/**
+ * Executor which runs tasks on another executor, but with no more than a fixed number running at once. Further tasks
+ * are queued, without blocking the submitting thread, and handed over as running tasks finish.
+ */
+final class BoundedExecutor implements Executor {
+
+    private final Executor delegate;
+    private final int maxConcurrency;
+
+    private final Deque<Runnable> queue = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger running = new AtomicInteger();
+
+    BoundedExecutor(@NotNull final Executor delegate, final int maxConcurrency) {
+
+        check("max concurrency must be greater than zero", maxConcurrency > 0);
+
+        this.delegate = delegate;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    @Override
+    public void execute(@NotNull final Runnable task) {
+        queue.add(task);
+        if (!drain() && queue.remove(task)) {
+            // Our own task could not be handed over, so let the caller deal with it as it would with any executor
+            throw new RejectedExecutionException("Task rejected by the underlying executor");
+        }
+    }
+
+    /**
+     * Hand over queued tasks while there is capacity. If the underlying executor rejects a task, it is put back at the
+     * head of the queue, to be tried again when a running task finishes or another task is submitted.
+     *
+     * @return false if a task was rejected
+     */
+    private boolean drain() {
+        while (!queue.isEmpty()) {
+            final int current = running.get();
+            if (current >= maxConcurrency) {
+                // A running task will pick up the queued work when it finishes
+                return true;
+            }
+            if (!running.compareAndSet(current, current + 1)) {
+                continue;
+            }
+
+            final Runnable task = queue.poll();
+            if (task == null) {
+                // Taken by another thread; give back the slot and check again
+                running.decrementAndGet();
+                continue;
+            }
+
+            try {
+                delegate.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        running.decrementAndGet();
+                        drain();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                queue.offerFirst(task);
+                running.decrementAndGet();
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,74 @@
+package org.rnorth.ducttape.unreliables;
+
+import org.jetbrains.annotations.Nullable;
+import org.rnorth.ducttape.LatencyHistogram;
+
+/**
+ * Settings controlling how {@link Unreliables} hedges a call: starting further attempts when the first is slow to
+ * complete, and using whichever succeeds first. Use {@link HedgePolicyBuilder} to build new instances.
+ *
+ * A policy which estimates the hedge delay from observed latencies keeps its own statistics, so it should be shared
+ * by all calls to the same operation.
+ */
+public final class HedgePolicy {
+
+    // Fall back to the initial delay until there are enough samples for a meaningful percentile
+    private static final int MIN_SAMPLES = 20;
+
+    private final int maxAttempts;
+    private final long hedgeDelayNanos;
+    private final double percentile;
+    private final LatencyHistogram latencies;
+    private final RetryBudget hedgeBudget;
+
+    HedgePolicy(final int maxAttempts, final long hedgeDelayNanos, final double percentile, @Nullable final LatencyHistogram latencies,
+                @Nullable final RetryBudget hedgeBudget) {
+        this.maxAttempts = maxAttempts;
+        this.hedgeDelayNanos = hedgeDelayNanos;
+        this.percentile = percentile;
+        this.latencies = latencies;
+        this.hedgeBudget = hedgeBudget;
+    }
+
+    /**
+     * @return the most attempts that will be made for each call, including the first
+     */
+    int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @return how long to wait for outstanding attempts before starting another, in nanoseconds
+     */
+    long hedgeDelayNanos() {
+        if (latencies == null || latencies.getCount() < MIN_SAMPLES) {
+            return hedgeDelayNanos;
+        }
+        return latencies.getValueAtPercentile(percentile);
+    }
+
+    /**
+     * Record how long a successful attempt took.
+     */
+    void recordLatency(final long nanos) {
+        if (latencies != null) {
+            latencies.record(nanos);
+        }
+    }
+
+    /**
+     * Record a call which succeeded on its first attempt, topping up the hedge budget (if any).
+     */
+    void recordFirstAttemptSuccess() {
+        if (hedgeBudget != null) {
+            hedgeBudget.recordFirstAttemptSuccess();
+        }
+    }
+
+    /**
+     * @return true if another attempt may be started, or false if the hedge budget (if any) is exhausted
+     */
+    boolean tryHedge() {
+        return hedgeBudget == null || hedgeBudget.tryRetry();
+    }
+}
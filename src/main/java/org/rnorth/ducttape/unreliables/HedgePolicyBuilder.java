@@ -0,0 +1,107 @@
+package org.rnorth.ducttape.unreliables;
+
+import org.jetbrains.annotations.NotNull;
+import org.rnorth.ducttape.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.rnorth.ducttape.Preconditions.check;
+
+/**
+ * Builder for {@link HedgePolicy} instances.
+ *
+ * Hedging only makes sense for idempotent calls, since more than one attempt may run to completion. Each hedge adds
+ * load to the component being called, so consider limiting it with {@link #withHedgeBudget(RetryBudget)}.
+ */
+public class HedgePolicyBuilder {
+
+    // Roughly how many recent latencies are considered when estimating a percentile
+    private static final int LATENCY_WINDOW = 1024;
+
+    private int maxAttempts = 2;
+    private long hedgeDelayNanos;
+    private double percentile;
+    private RetryBudget hedgeBudget;
+
+    private HedgePolicyBuilder() { }
+
+    /**
+     * Obtain a new builder instance.
+     * @return a new builder
+     */
+    public static HedgePolicyBuilder newBuilder() {
+        return new HedgePolicyBuilder();
+    }
+
+    /**
+     * Set the most attempts to make for each call, including the first. Defaults to 2.
+     *
+     * @param maxAttempts the maximum number of attempts
+     * @return the builder
+     */
+    public HedgePolicyBuilder withMaxAttempts(final int maxAttempts) {
+
+        check("max attempts must be at least 2", maxAttempts >= 2);
+
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    /**
+     * Start another attempt whenever the attempts so far have not completed within a fixed delay.
+     *
+     * @param delay    the delay
+     * @param timeUnit time unit for the delay
+     * @return the builder
+     */
+    public HedgePolicyBuilder withHedgeDelay(final long delay, @NotNull final TimeUnit timeUnit) {
+
+        check("hedge delay must be greater than zero", delay > 0);
+
+        this.hedgeDelayNanos = timeUnit.toNanos(delay);
+        this.percentile = 0;
+        return this;
+    }
+
+    /**
+     * Start another attempt whenever the attempts so far have taken longer than a given percentile of recently
+     * observed latencies. For example, a percentile of 95 means that roughly 5% of calls will be hedged.
+     *
+     * @param percentile   the latency percentile, between 0 and 100
+     * @param initialDelay the delay to use until enough latencies have been observed
+     * @param timeUnit     time unit for the initial delay
+     * @return the builder
+     */
+    public HedgePolicyBuilder withHedgeDelayAtPercentile(final double percentile, final long initialDelay, @NotNull final TimeUnit timeUnit) {
+
+        check("percentile must be between 0 and 100", percentile > 0 && percentile < 100);
+
+        withHedgeDelay(initialDelay, timeUnit);
+        this.percentile = percentile;
+        return this;
+    }
+
+    /**
+     * Draw hedged attempts from a budget, which may be shared with other policies and callers. Each call which
+     * succeeds on its first attempt tops up the budget. When it is exhausted, no further attempts are started, so
+     * hedging can never add more than a fixed proportion of extra load.
+     *
+     * @param hedgeBudget the budget to draw from
+     * @return the builder
+     */
+    public HedgePolicyBuilder withHedgeBudget(@NotNull final RetryBudget hedgeBudget) {
+        this.hedgeBudget = hedgeBudget;
+        return this;
+    }
+
+    /**
+     * Build and obtain a configured hedge policy.
+     * @return the configured hedge policy instance
+     */
+    public HedgePolicy build() {
+        check("a hedge delay must be set", hedgeDelayNanos > 0);
+
+        final LatencyHistogram latencies = percentile > 0 ? new LatencyHistogram(LATENCY_WINDOW) : null;
+        return new HedgePolicy(maxAttempts, hedgeDelayNanos, percentile, latencies, hedgeBudget);
+    }
+}
@@ -0,0 +1,200 @@
+package org.rnorth.ducttape.unreliables;
+
+import org.jetbrains.annotations.NotNull;
+import org.rnorth.ducttape.Deadline;
+import org.rnorth.ducttape.RetryBudgetExhaustedException;
+import org.rnorth.ducttape.RetryCountExceededException;
+import org.rnorth.ducttape.TimeoutException;
+import org.rnorth.ducttape.timeouts.TimeoutHandle;
+import org.rnorth.ducttape.timeouts.Timeouts;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives a hedged call: one attempt is started straight away, and further attempts are started whenever the hedge
+ * delay passes (or an attempt fails) without a result, up to the policy's limit. The first successful result is
+ * used, and any attempts still running are then interrupted.
+ */
+final class HedgedCall<T> {
+
+    private final Callable<T> lambda;
+    private final HedgePolicy hedgePolicy;
+    private final Executor executor;
+    private final Deadline deadline;
+
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+    private volatile TimeoutHandle timeoutHandle;
+
+    // Guarded by this
+    private final Attempt[] attempts;
+    private int started;
+    private int running;
+    private boolean budgetExhausted;
+    private Exception lastException;
+    private TimeoutHandle hedgeTimer;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private HedgedCall(@NotNull final Callable<T> lambda, @NotNull final HedgePolicy hedgePolicy, @NotNull final Executor executor, @NotNull final Deadline deadline) {
+        this.lambda = lambda;
+        this.hedgePolicy = hedgePolicy;
+        this.executor = executor;
+        this.deadline = deadline;
+        this.attempts = new HedgedCall.Attempt[hedgePolicy.getMaxAttempts()];
+    }
+
+    /**
+     * Start a hedged call, which must complete before the timeout expires.
+     */
+    static <T> CompletableFuture<T> start(final long timeoutNanos, @NotNull final HedgePolicy hedgePolicy, @NotNull final Executor executor, @NotNull final Callable<T> lambda) {
+        final HedgedCall<T> call = new HedgedCall<>(lambda, hedgePolicy, executor, Deadline.nested(timeoutNanos, TimeUnit.NANOSECONDS));
+        // Completing the future runs the caller's dependent stages, so keep that off the timer thread
+        call.timeoutHandle = Timeouts.newTimeoutOffTimerThread(timeoutNanos, TimeUnit.NANOSECONDS, call::onTimeout);
+        call.result.whenComplete((value, failure) -> call.cancelAll());
+        call.launch(false);
+        return call.result;
+    }
+
+    private void launch(final boolean hedge) {
+        final Attempt attempt;
+        synchronized (this) {
+            if (result.isDone() || started == attempts.length) {
+                return;
+            }
+            if (hedge && !hedgePolicy.tryHedge()) {
+                budgetExhausted = true;
+                return;
+            }
+            attempt = new Attempt(started);
+            attempts[started++] = attempt;
+            running++;
+
+            if (hedgeTimer != null) {
+                hedgeTimer.cancel();
+            }
+            if (started < attempts.length) {
+                // The executor may run the attempt directly, so keep that off the timer thread
+                hedgeTimer = Timeouts.newTimeoutOffTimerThread(hedgePolicy.hedgeDelayNanos(), TimeUnit.NANOSECONDS, () -> launch(true));
+            }
+        }
+
+        try {
+            executor.execute(attempt);
+        } catch (RejectedExecutionException e) {
+            onFailure(e);
+        }
+    }
+
+    private void onFailure(@NotNull final Exception e) {
+        synchronized (this) {
+            lastException = e;
+            running--;
+        }
+
+        // Don't wait for the hedge delay if we already know that another attempt is needed
+        launch(true);
+
+        final Exception failure;
+        synchronized (this) {
+            if (running > 0) {
+                return;
+            }
+            failure = budgetExhausted ?
+                    new RetryBudgetExhaustedException("Hedge budget exhausted", lastException) :
+                    new RetryCountExceededException("All hedged attempts failed", lastException);
+        }
+        result.completeExceptionally(failure);
+    }
+
+    private void onTimeout() {
+        final Exception cause;
+        synchronized (this) {
+            cause = lastException;
+        }
+        result.completeExceptionally(cause != null ?
+                new TimeoutException("Timeout waiting for result with exception", cause) :
+                new TimeoutException("Timeout waiting for result", null));
+    }
+
+    private void cancelAll() {
+        timeoutHandle.cancel();
+        deadline.cancel();
+
+        final Attempt[] toCancel;
+        synchronized (this) {
+            if (hedgeTimer != null) {
+                hedgeTimer.cancel();
+            }
+            toCancel = attempts.clone();
+        }
+        for (Attempt attempt : toCancel) {
+            if (attempt != null) {
+                attempt.cancel();
+            }
+        }
+    }
+
+    private final class Attempt implements Runnable {
+
+        private final int index;
+
+        private Thread thread;
+        private boolean cancelled;
+        private boolean interrupted;
+
+        Attempt(final int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                thread = Thread.currentThread();
+            }
+
+            final long startTime = System.nanoTime();
+            T value = null;
+            Exception failure = null;
+            try {
+                value = deadline.call(lambda);
+            } catch (Exception e) {
+                failure = e;
+            } finally {
+                // Detach before completing the result, which may cancel every attempt from another thread
+                synchronized (this) {
+                    thread = null;
+                    if (interrupted) {
+                        // Don't leave the executor's thread interrupted by us; any other interrupt is left alone
+                        Thread.interrupted();
+                    }
+                }
+            }
+
+            if (failure != null) {
+                onFailure(failure);
+                return;
+            }
+            hedgePolicy.recordLatency(System.nanoTime() - startTime);
+            if (result.complete(value) && index == 0) {
+                hedgePolicy.recordFirstAttemptSuccess();
+            }
+        }
+
+        synchronized void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            if (thread != null) {
+                interrupted = true;
+                thread.interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package org.rnorth.ducttape.unreliables;
+
+/**
+ * Signals that a polled condition was not yet true, so that the retry loops can treat it like any other failed
+ * attempt.
+ *
+ * A single instance is shared, with no stack trace, so that polling does not allocate an exception per attempt. It
+ * may still appear as the cause of a timeout or retry limit exception.
+ */
+final class NotReadyException extends RuntimeException {
+
+    static final NotReadyException INSTANCE = new NotReadyException();
+
+    private NotReadyException() {
+        super("Not ready yet", null, false, false);
+    }
+}
@@ -0,0 +1,89 @@
+package org.rnorth.ducttape.unreliables;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.rnorth.ducttape.Preconditions.check;
+
+/**
+ * A budget for retries which may be shared by many callers, to stop retries from multiplying the load on a failing
+ * component. Use with {@link RetryPolicyBuilder#withRetryBudget(RetryBudget)}.
+ *
+ * The budget is a token bucket: each call that succeeds on its first attempt adds a fraction of a token, up to a
+ * maximum, and each retry takes a whole token. Once the bucket is empty, retries are refused with a
+ * {@link org.rnorth.ducttape.RetryBudgetExhaustedException} until enough first attempts succeed again. For example, a
+ * ratio of 0.1 limits retries to roughly 10% of successful calls. The bucket starts full.
+ */
+public class RetryBudget {
+
+    // Token balances are held in thousandths of a token, so that fractional deposits can be made atomically
+    private static final long SCALE = 1000;
+
+    private final long depositPerSuccess;
+    private final long maxBalance;
+    private final AtomicLong balance;
+
+    private final LongAdder retriesAllowed = new LongAdder();
+    private final LongAdder retriesDenied = new LongAdder();
+
+    /**
+     * Create a new retry budget.
+     *
+     * @param retryRatio how many retries to allow for each call that succeeds on its first attempt
+     * @param maxRetries the most retries that can be saved up, which is also the initial allowance
+     */
+    public RetryBudget(final double retryRatio, final int maxRetries) {
+
+        check("retry ratio must be greater than zero", retryRatio > 0);
+        check("max retries must be greater than zero", maxRetries > 0);
+
+        this.depositPerSuccess = Math.max(1, Math.round(retryRatio * SCALE));
+        this.maxBalance = maxRetries * SCALE;
+        this.balance = new AtomicLong(maxBalance);
+    }
+
+    /**
+     * @return the total number of retries that this budget has allowed
+     */
+    public long getRetriesAllowed() {
+        return retriesAllowed.sum();
+    }
+
+    /**
+     * @return the total number of retries that this budget has refused
+     */
+    public long getRetriesDenied() {
+        return retriesDenied.sum();
+    }
+
+    /**
+     * @return the number of retries currently available
+     */
+    public long getAvailableRetries() {
+        return balance.get() / SCALE;
+    }
+
+    void recordFirstAttemptSuccess() {
+        long current;
+        do {
+            current = balance.get();
+            if (current >= maxBalance) {
+                return;
+            }
+        } while (!balance.compareAndSet(current, Math.min(current + depositPerSuccess, maxBalance)));
+    }
+
+    boolean tryRetry() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                retriesDenied.increment();
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+
+        retriesAllowed.increment();
+        return true;
+    }
+}
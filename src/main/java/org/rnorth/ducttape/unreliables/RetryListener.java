@@ -0,0 +1,52 @@
+package org.rnorth.ducttape.unreliables;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Receives notifications about each attempt made by {@link Unreliables}, e.g. to record metrics. Register a listener
+ * using {@link RetryPolicyBuilder#withListener(RetryListener)}, or use {@link RetryStatistics} to aggregate the
+ * notifications into histograms.
+ *
+ * Attempts are numbered from 1, and durations are measured in nanoseconds using {@link System#nanoTime()}. Listeners
+ * are called on the thread making the attempt, so should be quick and must be thread safe. All methods do nothing by
+ * default.
+ */
+public interface RetryListener {
+
+    /**
+     * Called before each attempt is made.
+     *
+     * @param attempt the attempt number
+     */
+    default void onAttemptStarted(final int attempt) { }
+
+    /**
+     * Called when an attempt succeeds.
+     *
+     * @param attempt      the attempt number
+     * @param attemptNanos how long the attempt took
+     * @param elapsedNanos how long the call has taken in total, including earlier attempts and backoff
+     */
+    default void onAttemptSucceeded(final int attempt, final long attemptNanos, final long elapsedNanos) { }
+
+    /**
+     * Called when an attempt fails, or returns a result which the retry policy rejects.
+     *
+     * @param attempt      the attempt number
+     * @param attemptNanos how long the attempt took
+     * @param elapsedNanos how long the call has taken in total, including earlier attempts and backoff
+     * @param cause        the exception thrown by the attempt
+     */
+    default void onAttemptFailed(final int attempt, final long attemptNanos, final long elapsedNanos, @NotNull final Exception cause) { }
+
+    /**
+     * Called when no further attempts will be made, because the timeout, retry limit or retry budget has been reached,
+     * or because an attempt failed with an exception which should not be retried.
+     *
+     * @param attempts      how many attempts were made
+     * @param elapsedNanos  how long the call took in total
+     * @param lastException the exception thrown by the last attempt, if any
+     */
+    default void onGaveUp(final int attempts, final long elapsedNanos, @Nullable final Exception lastException) { }
+}
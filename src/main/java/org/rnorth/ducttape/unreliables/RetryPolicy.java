@@ -0,0 +1,139 @@
+package org.rnorth.ducttape.unreliables;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Settings controlling how {@link Unreliables} retries a failed call. Use {@link RetryPolicyBuilder} to build new
+ * instances.
+ */
+public final class RetryPolicy {
+
+    /**
+     * Policy which retries immediately, without any backoff.
+     */
+    static final RetryPolicy DEFAULT = RetryPolicyBuilder.newBuilder().build();
+
+    private final Backoff backoff;
+    private final long baseDelayNanos;
+    private final long maxDelayNanos;
+    private final RetryBudget retryBudget;
+    private final Predicate<? super Exception> retryPredicate;
+    private final Predicate<Object> resultPredicate;
+    private final RetryListener listener;
+
+    RetryPolicy(@NotNull final Backoff backoff, final long baseDelayNanos, final long maxDelayNanos, @Nullable final RetryBudget retryBudget,
+                @NotNull final Predicate<? super Exception> retryPredicate, @Nullable final Predicate<Object> resultPredicate,
+                @Nullable final RetryListener listener) {
+        this.backoff = backoff;
+        this.baseDelayNanos = baseDelayNanos;
+        this.maxDelayNanos = maxDelayNanos;
+        this.retryBudget = retryBudget;
+        this.retryPredicate = retryPredicate;
+        this.resultPredicate = resultPredicate;
+        this.listener = listener;
+    }
+
+    /**
+     * Notify the listener (if any) that an attempt is starting.
+     *
+     * @param attempt the attempt number, starting at 1
+     * @return the start time of the attempt, from {@link System#nanoTime()}
+     */
+    long attemptStarted(final int attempt) {
+        if (listener != null) {
+            listener.onAttemptStarted(attempt);
+        }
+        return System.nanoTime();
+    }
+
+    void attemptSucceeded(final int attempt, final long attemptStartNanos, final long callStartNanos) {
+        if (listener != null) {
+            final long now = System.nanoTime();
+            listener.onAttemptSucceeded(attempt, now - attemptStartNanos, now - callStartNanos);
+        }
+    }
+
+    void attemptFailed(final int attempt, final long attemptStartNanos, final long callStartNanos, @NotNull final Exception cause) {
+        if (listener != null) {
+            final long now = System.nanoTime();
+            listener.onAttemptFailed(attempt, now - attemptStartNanos, now - callStartNanos, cause);
+        }
+    }
+
+    void gaveUp(final int attempts, final long callStartNanos, @Nullable final Exception lastException) {
+        if (listener != null) {
+            listener.onGaveUp(attempts, System.nanoTime() - callStartNanos, lastException);
+        }
+    }
+
+    /**
+     * @param e the exception thrown by a failed attempt
+     * @return true if the attempt may be retried, or false if the failure is permanent
+     */
+    boolean isRetryable(@NotNull final Exception e) {
+        // Polling for a condition (e.g. retryUntilTrue) is always retryable
+        return e == NotReadyException.INSTANCE || retryPredicate.test(e);
+    }
+
+    /**
+     * @param result the result returned by an attempt
+     * @return true if the result should not be used, and the attempt should be retried instead
+     */
+    boolean isRetryableResult(@Nullable final Object result) {
+        return resultPredicate != null && resultPredicate.test(result);
+    }
+
+    /**
+     * Record a call which succeeded on its first attempt, topping up the retry budget (if any).
+     */
+    void recordFirstAttemptSuccess() {
+        if (retryBudget != null) {
+            retryBudget.recordFirstAttemptSuccess();
+        }
+    }
+
+    /**
+     * @return true if another attempt may be made, or false if the retry budget (if any) is exhausted
+     */
+    boolean tryRetry() {
+        return retryBudget == null || retryBudget.tryRetry();
+    }
+
+    /**
+     * Work out how long to wait before the next attempt.
+     *
+     * @param attempt            the number of attempts which have failed so far, starting at 1
+     * @param previousDelayNanos the delay before the previous attempt, or zero if there was none
+     * @return how long to wait, in nanoseconds
+     */
+    long nextDelayNanos(final int attempt, final long previousDelayNanos) {
+        final long delay;
+        switch (backoff) {
+            case FIXED:
+                delay = baseDelayNanos;
+                break;
+            case EXPONENTIAL:
+                // Double the delay for each failure, taking care not to overflow
+                final int doublings = Math.min(attempt - 1, Long.numberOfLeadingZeros(baseDelayNanos) - 1);
+                delay = baseDelayNanos << doublings;
+                break;
+            case DECORRELATED_JITTER:
+                // Random delay between the base delay and three times the previous delay
+                final long previous = Math.max(previousDelayNanos, baseDelayNanos);
+                final long upper = previous > (Long.MAX_VALUE - 1) / 3 ? Long.MAX_VALUE - 1 : previous * 3;
+                delay = ThreadLocalRandom.current().nextLong(baseDelayNanos, upper + 1);
+                break;
+            default:
+                delay = 0;
+        }
+        return Math.min(delay, maxDelayNanos);
+    }
+
+    enum Backoff {
+        NONE, FIXED, EXPONENTIAL, DECORRELATED_JITTER
+    }
+}
@@ -0,0 +1,203 @@
+package org.rnorth.ducttape.unreliables;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.rnorth.ducttape.Preconditions.check;
+
+/**
+ * Builder for {@link RetryPolicy} instances.
+ *
+ * By default, a failed call is retried immediately. A backoff strategy spreads retries out over time, so that a
+ * struggling component is not hit with a tight loop of calls, and jitter stops many callers from retrying in step.
+ */
+public class RetryPolicyBuilder {
+
+    private RetryPolicy.Backoff backoff = RetryPolicy.Backoff.NONE;
+    private long baseDelayNanos;
+    private long maxDelayNanos = Long.MAX_VALUE;
+    private RetryBudget retryBudget;
+    private final List<Predicate<? super Exception>> retryPredicates = new ArrayList<>();
+    private final List<Class<? extends Exception>> abortOn = new ArrayList<>();
+    private Predicate<Object> resultPredicate;
+    private RetryListener listener;
+
+    private RetryPolicyBuilder() { }
+
+    /**
+     * Obtain a new builder instance.
+     * @return a new builder
+     */
+    public static RetryPolicyBuilder newBuilder() {
+        return new RetryPolicyBuilder();
+    }
+
+    /**
+     * Wait for the same fixed delay after each failure.
+     *
+     * @param delay    the delay
+     * @param timeUnit time unit for the delay
+     * @return the builder
+     */
+    public RetryPolicyBuilder withFixedBackoff(final long delay, @NotNull final TimeUnit timeUnit) {
+        return withBackoff(RetryPolicy.Backoff.FIXED, delay, timeUnit);
+    }
+
+    /**
+     * Wait after each failure for a delay which doubles each time, starting from an initial delay.
+     *
+     * @param initialDelay the delay after the first failure
+     * @param timeUnit     time unit for the delay
+     * @return the builder
+     */
+    public RetryPolicyBuilder withExponentialBackoff(final long initialDelay, @NotNull final TimeUnit timeUnit) {
+        return withBackoff(RetryPolicy.Backoff.EXPONENTIAL, initialDelay, timeUnit);
+    }
+
+    /**
+     * Wait after each failure for a random delay of between the base delay and three times the previous delay
+     * ('decorrelated jitter'). Delays grow roughly exponentially, but callers which fail at the same time do not
+     * retry in step with each other. This should usually be combined with {@link #withMaxBackoff(long, TimeUnit)}.
+     *
+     * @param baseDelay the minimum delay
+     * @param timeUnit  time unit for the delay
+     * @return the builder
+     */
+    public RetryPolicyBuilder withDecorrelatedJitterBackoff(final long baseDelay, @NotNull final TimeUnit timeUnit) {
+        return withBackoff(RetryPolicy.Backoff.DECORRELATED_JITTER, baseDelay, timeUnit);
+    }
+
+    /**
+     * Cap the delay between attempts, whichever backoff strategy is in use.
+     *
+     * @param maxDelay the maximum delay
+     * @param timeUnit time unit for the delay
+     * @return the builder
+     */
+    public RetryPolicyBuilder withMaxBackoff(final long maxDelay, @NotNull final TimeUnit timeUnit) {
+
+        check("max backoff must not be negative", maxDelay >= 0);
+
+        this.maxDelayNanos = timeUnit.toNanos(maxDelay);
+        return this;
+    }
+
+    /**
+     * Draw retries from a budget which may be shared with other policies and callers. When the budget is exhausted,
+     * retries are refused immediately with a {@link org.rnorth.ducttape.RetryBudgetExhaustedException}.
+     *
+     * @param retryBudget the budget to draw from
+     * @return the builder
+     */
+    public RetryPolicyBuilder withRetryBudget(@NotNull final RetryBudget retryBudget) {
+        this.retryBudget = retryBudget;
+        return this;
+    }
+
+    /**
+     * Only retry failures with exceptions of the given types (or their subclasses). Other exceptions are treated as
+     * permanent failures, unless allowed by another call to this method or {@link #retryIf(Predicate)}.
+     *
+     * @param exceptionTypes exception types to retry
+     * @return the builder
+     */
+    @SafeVarargs
+    public final RetryPolicyBuilder retryOn(@NotNull final Class<? extends Exception>... exceptionTypes) {
+
+        check("at least one exception type must be given", exceptionTypes.length > 0);
+
+        final List<Class<? extends Exception>> types = new ArrayList<>(exceptionTypes.length);
+        for (Class<? extends Exception> type : exceptionTypes) {
+            types.add(type);
+        }
+        retryPredicates.add(e -> types.stream().anyMatch(type -> type.isInstance(e)));
+        return this;
+    }
+
+    /**
+     * Only retry failures with exceptions which match the given predicate. Other exceptions are treated as permanent
+     * failures, unless allowed by another call to this method or {@link #retryOn(Class[])}.
+     *
+     * @param predicate predicate returning true for exceptions which should be retried
+     * @return the builder
+     */
+    public RetryPolicyBuilder retryIf(@NotNull final Predicate<? super Exception> predicate) {
+        retryPredicates.add(predicate);
+        return this;
+    }
+
+    /**
+     * Never retry failures with exceptions of the given types (or their subclasses). This takes precedence over
+     * {@link #retryOn(Class[])} and {@link #retryIf(Predicate)}.
+     *
+     * @param exceptionTypes exception types to treat as permanent failures
+     * @return the builder
+     */
+    @SafeVarargs
+    public final RetryPolicyBuilder abortOn(@NotNull final Class<? extends Exception>... exceptionTypes) {
+
+        check("at least one exception type must be given", exceptionTypes.length > 0);
+
+        for (Class<? extends Exception> type : exceptionTypes) {
+            abortOn.add(type);
+        }
+        return this;
+    }
+
+    /**
+     * Retry calls which return a result matching the given predicate, as if they had failed. For example, a
+     * predicate of {@code result -> result == null} retries until a non-null result is returned.
+     *
+     * @param predicate predicate returning true for results which should be retried
+     * @return the builder
+     */
+    public RetryPolicyBuilder retryIfResult(@NotNull final Predicate<Object> predicate) {
+        this.resultPredicate = predicate;
+        return this;
+    }
+
+    /**
+     * Notify a listener about each attempt, e.g. to record metrics.
+     *
+     * @param listener the listener
+     * @return the builder
+     * @see RetryStatistics
+     */
+    public RetryPolicyBuilder withListener(@NotNull final RetryListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * Build and obtain a configured retry policy.
+     * @return the configured retry policy instance
+     */
+    public RetryPolicy build() {
+        check("max backoff must not be less than the base backoff", maxDelayNanos >= baseDelayNanos || backoff == RetryPolicy.Backoff.NONE);
+
+        final Predicate<? super Exception> retryPredicate;
+        if (retryPredicates.isEmpty() && abortOn.isEmpty()) {
+            retryPredicate = e -> true;
+        } else {
+            final List<Predicate<? super Exception>> retryIf = new ArrayList<>(retryPredicates);
+            final List<Class<? extends Exception>> abort = new ArrayList<>(abortOn);
+            retryPredicate = e -> abort.stream().noneMatch(type -> type.isInstance(e)) &&
+                    (retryIf.isEmpty() || retryIf.stream().anyMatch(predicate -> predicate.test(e)));
+        }
+
+        return new RetryPolicy(backoff, baseDelayNanos, maxDelayNanos, retryBudget, retryPredicate, resultPredicate, listener);
+    }
+
+    private RetryPolicyBuilder withBackoff(@NotNull final RetryPolicy.Backoff backoff, final long delay, @NotNull final TimeUnit timeUnit) {
+
+        check("backoff delay must be greater than zero", delay > 0);
+
+        this.backoff = backoff;
+        this.baseDelayNanos = timeUnit.toNanos(delay);
+        return this;
+    }
+}
@@ -0,0 +1,109 @@
+package org.rnorth.ducttape.unreliables;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.rnorth.ducttape.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link RetryListener} which aggregates attempts into counters and lock-free histograms, showing how many attempts
+ * calls take and where the time goes. One instance may be shared by many policies and threads.
+ *
+ * Histograms cover recent calls, with older samples gradually losing their influence, and percentiles are accurate to
+ * within 25%.
+ */
+public class RetryStatistics implements RetryListener {
+
+    private static final int HISTOGRAM_WINDOW = 1 << 16;
+
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder failedAttempts = new LongAdder();
+    private final LongAdder successfulCalls = new LongAdder();
+    private final LongAdder failedCalls = new LongAdder();
+
+    private final LatencyHistogram attemptLatencies = new LatencyHistogram(HISTOGRAM_WINDOW);
+    private final LatencyHistogram callLatencies = new LatencyHistogram(HISTOGRAM_WINDOW);
+    private final LatencyHistogram attemptsPerCall = new LatencyHistogram(HISTOGRAM_WINDOW);
+
+    @Override
+    public void onAttemptStarted(final int attempt) {
+        attempts.increment();
+    }
+
+    @Override
+    public void onAttemptSucceeded(final int attempt, final long attemptNanos, final long elapsedNanos) {
+        successfulCalls.increment();
+        attemptLatencies.record(attemptNanos);
+        callLatencies.record(elapsedNanos);
+        attemptsPerCall.record(attempt);
+    }
+
+    @Override
+    public void onAttemptFailed(final int attempt, final long attemptNanos, final long elapsedNanos, @NotNull final Exception cause) {
+        failedAttempts.increment();
+        attemptLatencies.record(attemptNanos);
+    }
+
+    @Override
+    public void onGaveUp(final int attempts, final long elapsedNanos, @Nullable final Exception lastException) {
+        failedCalls.increment();
+        callLatencies.record(elapsedNanos);
+        attemptsPerCall.record(attempts);
+    }
+
+    /**
+     * @return the total number of attempts started
+     */
+    public long getAttemptCount() {
+        return attempts.sum();
+    }
+
+    /**
+     * @return the total number of attempts which failed
+     */
+    public long getFailedAttemptCount() {
+        return failedAttempts.sum();
+    }
+
+    /**
+     * @return the total number of calls which eventually succeeded
+     */
+    public long getSuccessfulCallCount() {
+        return successfulCalls.sum();
+    }
+
+    /**
+     * @return the total number of calls which gave up without success
+     */
+    public long getFailedCallCount() {
+        return failedCalls.sum();
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 100
+     * @param timeUnit   time unit for the result
+     * @return how long individual attempts took, at the given percentile
+     */
+    public long getAttemptLatencyAtPercentile(final double percentile, @NotNull final TimeUnit timeUnit) {
+        return timeUnit.convert(attemptLatencies.getValueAtPercentile(percentile), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 100
+     * @param timeUnit   time unit for the result
+     * @return how long calls took in total, including retries and backoff, at the given percentile
+     */
+    public long getCallLatencyAtPercentile(final double percentile, @NotNull final TimeUnit timeUnit) {
+        return timeUnit.convert(callLatencies.getValueAtPercentile(percentile), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 100
+     * @return how many attempts calls took, at the given percentile
+     */
+    public long getAttemptsPerCallAtPercentile(final double percentile) {
+        return attemptsPerCall.getValueAtPercentile(percentile);
+    }
+}
@@ -0,0 +1,63 @@
+package org.rnorth.ducttape.unreliables;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A signal which tells waiting code that the condition it is waiting for may have changed, so that it can check again
+ * straight away rather than at its next poll.
+ *
+ * Pass a signal to {@link Unreliables#retryUntilTrue(int, TimeUnit, Signal, java.util.concurrent.Callable)} (or
+ * one of its variants), and call {@link #signal()} from whatever can observe the change - for example, a log consumer
+ * or a state change listener. Polling with backoff continues as a fallback, so a missed or absent signal only delays
+ * the wait, and the usual timeout semantics still apply.
+ *
+ * Signalling is cheap when nothing is waiting, so it is safe to signal on every event.
+ */
+public final class Signal {
+
+    private final AtomicLong generation = new AtomicLong();
+    private volatile int waiters;
+
+    /**
+     * Wake up anything waiting on this signal, so that it checks its condition again.
+     */
+    public void signal() {
+        generation.incrementAndGet();
+        // A waiter registers itself before reading the generation, so if none is registered here, any later waiter
+        //  is bound to see the new generation and not wait
+        if (waiters > 0) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * @return a token identifying the signals seen so far; read this before checking the condition
+     */
+    long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Wait until the signal is given after the given generation, or until the timeout elapses.
+     *
+     * @param sinceGeneration the generation read before the condition was last checked
+     * @param timeoutNanos    the longest time to wait
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    synchronized void await(final long sinceGeneration, final long timeoutNanos) throws InterruptedException {
+        final long waitUntil = System.nanoTime() + timeoutNanos;
+        waiters++;
+        try {
+            long remaining = timeoutNanos;
+            while (generation.get() == sinceGeneration && remaining > 0) {
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                remaining = waitUntil - System.nanoTime();
+            }
+        } finally {
+            waiters--;
+        }
+    }
+}
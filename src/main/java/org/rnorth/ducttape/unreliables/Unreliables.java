@@ -1,11 +1,30 @@
 package org.rnorth.ducttape.unreliables;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.rnorth.ducttape.BatchIncompleteException;
+import org.rnorth.ducttape.Deadline;
+import org.rnorth.ducttape.DeadlineCallable;
+import org.rnorth.ducttape.DeadlineExceededException;
+import org.rnorth.ducttape.RetryAbortedException;
+import org.rnorth.ducttape.RetryBudgetExhaustedException;
+import org.rnorth.ducttape.timeouts.DaemonThreadFactory;
+import org.rnorth.ducttape.timeouts.TimeLimiter;
 import org.rnorth.ducttape.timeouts.Timeouts;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -13,11 +32,21 @@ import static org.rnorth.ducttape.Preconditions.check;
 
 /**
  * Utilities to support automatic retry of things that may fail.
+ *
+ * If a {@link Deadline} is in effect, no further attempts are started once it has expired.
  */
 public abstract class Unreliables {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Unreliables.class);
 
+    // Used to wait for many conditions at once, so that each worker does not check its condition in a tight loop
+    private static final RetryPolicy READINESS_POLICY = RetryPolicyBuilder.newBuilder()
+                                                                          .withFixedBackoff(100, TimeUnit.MILLISECONDS)
+                                                                          .build();
+
+    // How often to check a condition when waiting on a signal, if the retry policy has no backoff of its own
+    private static final long SIGNAL_FALLBACK_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
     /**
      * Call a supplier repeatedly until it returns a result. If an exception is thrown, the call
      * will be retried repeatedly until the timeout is hit.
@@ -29,37 +58,247 @@ public abstract class Unreliables {
      * @return the result of the successful lambda expression call
      */
     public static <T> T retryUntilSuccess(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final Callable<T> lambda) {
+        return retryUntilSuccess(timeout, timeUnit, Timeouts.getDefaultTimeLimiter(), lambda);
+    }
+
+    /**
+     * Call a supplier repeatedly until it returns a result. If an exception is thrown, the call
+     * will be retried repeatedly until the timeout is hit. The calls are made on a thread belonging to the given
+     * time limiter - for example, a virtual thread or a bounded pool.
+     *
+     * @param timeout     how long to wait
+     * @param timeUnit    time unit for time interval
+     * @param timeLimiter time limiter to run the calls with
+     * @param lambda      supplier lambda expression (may throw checked exceptions)
+     * @param <T>         return type of the supplier
+     * @return the result of the successful lambda expression call
+     */
+    public static <T> T retryUntilSuccess(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final TimeLimiter timeLimiter, @NotNull final Callable<T> lambda) {
+        return retryUntilSuccess(timeout, timeUnit, timeLimiter, RetryPolicy.DEFAULT, lambda);
+    }
+
+    /**
+     * Call a supplier repeatedly until it returns a result. If an exception is thrown, the call
+     * will be retried according to the given retry policy until the timeout is hit.
+     *
+     * @param timeout     how long to wait
+     * @param timeUnit    time unit for time interval
+     * @param retryPolicy policy controlling the backoff between attempts
+     * @param lambda      supplier lambda expression (may throw checked exceptions)
+     * @param <T>         return type of the supplier
+     * @return the result of the successful lambda expression call
+     */
+    public static <T> T retryUntilSuccess(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final RetryPolicy retryPolicy, @NotNull final Callable<T> lambda) {
+        return retryUntilSuccess(timeout, timeUnit, Timeouts.getDefaultTimeLimiter(), retryPolicy, lambda);
+    }
+
+    /**
+     * Call a supplier repeatedly until it returns a result, passing it the overall deadline. If an exception is
+     * thrown, the call will be retried repeatedly until the timeout is hit.
+     *
+     * The deadline lets a long-running attempt stop early once the timeout has passed or the caller has given up,
+     * instead of running on after its result is no longer wanted. It can also be used to size I/O timeouts to fit the
+     * time remaining.
+     *
+     * @param timeout  how long to wait
+     * @param timeUnit time unit for time interval
+     * @param lambda   supplier lambda expression (may throw checked exceptions)
+     * @param <T>      return type of the supplier
+     * @return the result of the successful lambda expression call
+     */
+    public static <T> T retryUntilSuccess(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final DeadlineCallable<T> lambda) {
+        return retryUntilSuccess(timeout, timeUnit, RetryPolicy.DEFAULT, lambda);
+    }
+
+    /**
+     * Call a supplier repeatedly until it returns a result, passing it the overall deadline. If an exception is
+     * thrown, the call will be retried according to the given retry policy until the timeout is hit.
+     *
+     * @param timeout     how long to wait
+     * @param timeUnit    time unit for time interval
+     * @param retryPolicy policy controlling the backoff between attempts
+     * @param lambda      supplier lambda expression (may throw checked exceptions)
+     * @param <T>         return type of the supplier
+     * @return the result of the successful lambda expression call
+     * @see #retryUntilSuccess(int, TimeUnit, DeadlineCallable)
+     */
+    public static <T> T retryUntilSuccess(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final RetryPolicy retryPolicy, @NotNull final DeadlineCallable<T> lambda) {
+        // Attempts are made with the overall deadline in effect
+        return retryUntilSuccess(timeout, timeUnit, Timeouts.getDefaultTimeLimiter(), retryPolicy, () -> lambda.call(Deadline.current()));
+    }
+
+    /**
+     * Call a supplier repeatedly until it returns a result. If an exception is thrown, the call
+     * will be retried according to the given retry policy until the timeout is hit. The calls are made on a thread
+     * belonging to the given time limiter.
+     *
+     * @param timeout     how long to wait
+     * @param timeUnit    time unit for time interval
+     * @param timeLimiter time limiter to run the calls with
+     * @param retryPolicy policy controlling the backoff between attempts
+     * @param lambda      supplier lambda expression (may throw checked exceptions)
+     * @param <T>         return type of the supplier
+     * @return the result of the successful lambda expression call
+     */
+    public static <T> T retryUntilSuccess(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final TimeLimiter timeLimiter, @NotNull final RetryPolicy retryPolicy, @NotNull final Callable<T> lambda) {
+        return retryUntilSuccess(timeout, timeUnit, timeLimiter, retryPolicy, null, lambda);
+    }
+
+    /**
+     * Call a supplier repeatedly until it returns a result. If an exception is thrown, the call will be retried
+     * according to the given retry policy until the timeout is hit, but is also retried straight away whenever the
+     * given signal is given.
+     *
+     * @param timeout     how long to wait
+     * @param timeUnit    time unit for time interval
+     * @param retryPolicy policy controlling the backoff between attempts, when no signal is given
+     * @param signal      signal which is given when the supplier may now succeed
+     * @param lambda      supplier lambda expression (may throw checked exceptions)
+     * @param <T>         return type of the supplier
+     * @return the result of the successful lambda expression call
+     */
+    public static <T> T retryUntilSuccess(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final RetryPolicy retryPolicy, @NotNull final Signal signal, @NotNull final Callable<T> lambda) {
+        return retryUntilSuccess(timeout, timeUnit, Timeouts.getDefaultTimeLimiter(), retryPolicy, signal, lambda);
+    }
+
+    private static <T> T retryUntilSuccess(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final TimeLimiter timeLimiter, @NotNull final RetryPolicy retryPolicy,
+                                           @Nullable final Signal signal, @NotNull final Callable<T> lambda) {
 
         check("timeout must be greater than zero", timeout > 0);
 
         final int[] attempt = {0};
         final Exception[] lastException = {null};
+        final long callStart = System.nanoTime();
 
         final AtomicBoolean doContinue = new AtomicBoolean(true);
+        // Held while reporting an attempt's outcome, so that nothing is reported once the caller has given up
+        final Object reportLock = new Object();
         try {
-            return Timeouts.getWithTimeout(timeout, timeUnit, () -> {
-                while (doContinue.get()) {
+            return timeLimiter.getWithTimeout(timeout, timeUnit, () -> {
+                // Don't start attempts whose result could no longer be used
+                final Deadline deadline = Deadline.current();
+                long delay = 0;
+                while (doContinue.get() && (deadline == null || !deadline.isExpired())) {
+                    // Read before the attempt, so that a signal given while it is running is not missed
+                    final long generation = signal == null ? 0 : signal.generation();
+                    final long attemptStart = retryPolicy.attemptStarted(attempt[0] + 1);
                     try {
-                        return lambda.call();
+                        final T result = lambda.call();
+                        if (!retryPolicy.isRetryableResult(result)) {
+                            synchronized (reportLock) {
+                                if (doContinue.get()) {
+                                    retryPolicy.attemptSucceeded(attempt[0] + 1, attemptStart, callStart);
+                                    if (attempt[0] == 0) {
+                                        retryPolicy.recordFirstAttemptSuccess();
+                                    }
+                                }
+                            }
+                            return result;
+                        }
+                        lastException[0] = NotReadyException.INSTANCE;
                     } catch (Exception e) {
-                        // Failed
-                        LOGGER.trace("Retrying lambda call on attempt {}", attempt[0]++);
                         lastException[0] = e;
                     }
+                    // Failed
+                    synchronized (reportLock) {
+                        if (!doContinue.get()) {
+                            break;
+                        }
+                        retryPolicy.attemptFailed(++attempt[0], attemptStart, callStart, lastException[0]);
+                    }
+                    if (!retryPolicy.isRetryable(lastException[0])) {
+                        throw new RetryAbortedException("Not retrying after non-retryable exception", lastException[0]);
+                    }
+                    if (deadline != null && deadline.isExpired()) {
+                        // Don't spend the retry budget on an attempt which will never be made
+                        break;
+                    }
+                    LOGGER.trace("Retrying lambda call on attempt {}", attempt[0]);
+                    if (!retryPolicy.tryRetry()) {
+                        throw new RetryBudgetExhaustedException("Retry budget exhausted", lastException[0]);
+                    }
+                    delay = retryPolicy.nextDelayNanos(attempt[0], delay);
+                    backOff(delay, signal, generation);
                 }
-                return null;
+                throw new DeadlineExceededException("Deadline expired before a result was obtained", lastException[0]);
             });
         } catch (org.rnorth.ducttape.TimeoutException e) {
+            synchronized (reportLock) {
+                doContinue.set(false);
+                retryPolicy.gaveUp(attempt[0], callStart, lastException[0]);
+            }
             if (lastException[0] != null) {
                 throw new org.rnorth.ducttape.TimeoutException("Timeout waiting for result with exception", lastException[0]);
             } else {
                 throw new org.rnorth.ducttape.TimeoutException(e);
             }
+        } catch (RuntimeException e) {
+            synchronized (reportLock) {
+                doContinue.set(false);
+                retryPolicy.gaveUp(attempt[0], callStart, lastException[0]);
+            }
+            if (e.getCause() instanceof RetryBudgetExhaustedException) {
+                throw new RetryBudgetExhaustedException("Retry budget exhausted", lastException[0]);
+            }
+            if (e.getCause() instanceof RetryAbortedException) {
+                throw (RetryAbortedException) e.getCause();
+            }
+            throw e;
         } finally {
             doContinue.set(false);
         }
     }
 
+    /**
+     * Call a supplier repeatedly on the calling thread until it returns a result. If an exception is thrown, the call
+     * will be retried repeatedly until the timeout is hit.
+     *
+     * Unlike {@link #retryUntilSuccess(int, TimeUnit, Callable)}, no other thread is involved: the timeout is checked
+     * between attempts, and nothing is allocated per attempt unless the lambda fails. An attempt which is already
+     * running when the timeout expires is allowed to finish, and its result is returned if it succeeds, so this is
+     * best suited to lambdas which are quick or which have their own timeouts.
+     *
+     * If the thread is interrupted while backing off, a RuntimeException wrapping the InterruptedException is thrown,
+     * and the thread's interrupt status is restored.
+     *
+     * @param timeout  how long to wait
+     * @param timeUnit time unit for time interval
+     * @param lambda   supplier lambda expression (may throw checked exceptions)
+     * @param <T>      return type of the supplier
+     * @return the result of the successful lambda expression call
+     */
+    public static <T> T retryUntilSuccessOnCallingThread(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final Callable<T> lambda) {
+        return retryUntilSuccessOnCallingThread(timeout, timeUnit, RetryPolicy.DEFAULT, lambda);
+    }
+
+    /**
+     * Call a supplier repeatedly on the calling thread until it returns a result. If an exception is thrown, the call
+     * will be retried according to the given retry policy until the timeout is hit.
+     *
+     * @param timeout     how long to wait
+     * @param timeUnit    time unit for time interval
+     * @param retryPolicy policy controlling the backoff between attempts
+     * @param lambda      supplier lambda expression (may throw checked exceptions)
+     * @param <T>         return type of the supplier
+     * @return the result of the successful lambda expression call
+     * @see #retryUntilSuccessOnCallingThread(int, TimeUnit, Callable)
+     */
+    public static <T> T retryUntilSuccessOnCallingThread(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final RetryPolicy retryPolicy, @NotNull final Callable<T> lambda) {
+
+        check("timeout must be greater than zero", timeout > 0);
+
+        final long timeoutNanos = Deadline.clampToCurrent(timeout, timeUnit);
+        final Deadline deadline = Deadline.nested(timeoutNanos, TimeUnit.NANOSECONDS);
+        try {
+            return deadline.call(() -> retryUntilDeadline(deadline, retryPolicy, lambda));
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            // retryUntilDeadline only throws unchecked exceptions
+            throw new RuntimeException(e);
+        }
+    }
+
     /**
      * Call a supplier repeatedly until it returns a result. If an exception is thrown, the call
      * will be retried repeatedly until the retry limit is hit.
@@ -70,22 +309,78 @@ public abstract class Unreliables {
      * @return the result of the successful lambda expression call
      */
     public static <T> T retryUntilSuccess(final int tryLimit, @NotNull final Callable<T> lambda) {
+        return retryUntilSuccess(tryLimit, RetryPolicy.DEFAULT, lambda);
+    }
+
+    /**
+     * Call a supplier repeatedly until it returns a result. If an exception is thrown, the call
+     * will be retried according to the given retry policy until the retry limit is hit.
+     *
+     * If the thread is interrupted while backing off, a RuntimeException wrapping the InterruptedException is thrown,
+     * and the thread's interrupt status is restored.
+     *
+     * @param tryLimit    how many times to try calling the supplier
+     * @param retryPolicy policy controlling the backoff between attempts
+     * @param lambda      supplier lambda expression (may throw checked exceptions)
+     * @param <T>         return type of the supplier
+     * @return the result of the successful lambda expression call
+     */
+    public static <T> T retryUntilSuccess(final int tryLimit, @NotNull final RetryPolicy retryPolicy, @NotNull final Callable<T> lambda) {
 
         check("tryLimit must be greater than zero", tryLimit > 0);
 
         int attempt = 0;
+        long delay = 0;
         Exception lastException = null;
+        final long callStart = System.nanoTime();
 
-        while (attempt < tryLimit) {
-            try {
-                return lambda.call();
-            } catch (Exception e) {
-                lastException = e;
-                attempt++;
+        try {
+            while (attempt < tryLimit) {
+                final Deadline deadline = Deadline.current();
+                if (deadline != null && deadline.isExpired()) {
+                    throw new DeadlineExceededException("Deadline expired before retry limit was hit", lastException);
+                }
+                final long attemptStart = retryPolicy.attemptStarted(attempt + 1);
+                try {
+                    final T result = lambda.call();
+                    if (!retryPolicy.isRetryableResult(result)) {
+                        retryPolicy.attemptSucceeded(attempt + 1, attemptStart, callStart);
+                        if (attempt == 0) {
+                            retryPolicy.recordFirstAttemptSuccess();
+                        }
+                        return result;
+                    }
+                    lastException = NotReadyException.INSTANCE;
+                } catch (Exception e) {
+                    lastException = e;
+                }
+                retryPolicy.attemptFailed(++attempt, attemptStart, callStart, lastException);
+                if (!retryPolicy.isRetryable(lastException)) {
+                    throw new RetryAbortedException("Not retrying after non-retryable exception", lastException);
+                }
+
+                if (attempt < tryLimit) {
+                    if (deadline != null && deadline.isExpired()) {
+                        throw new DeadlineExceededException("Deadline expired before retry limit was hit", lastException);
+                    }
+                    if (!retryPolicy.tryRetry()) {
+                        throw new RetryBudgetExhaustedException("Retry budget exhausted", lastException);
+                    }
+                    delay = retryPolicy.nextDelayNanos(attempt, delay);
+                    try {
+                        backOff(delay);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException("Interrupted while waiting to retry", e);
+                    }
+                }
             }
-        }
 
-        throw new org.rnorth.ducttape.RetryCountExceededException("Retry limit hit with exception", lastException);
+            throw new org.rnorth.ducttape.RetryCountExceededException("Retry limit hit with exception", lastException);
+        } catch (RuntimeException e) {
+            retryPolicy.gaveUp(attempt, callStart, lastException);
+            throw e;
+        }
     }
 
     /**
@@ -97,9 +392,119 @@ public abstract class Unreliables {
      * @param lambda   supplier lambda expression
      */
     public static void retryUntilTrue(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final Callable<Boolean> lambda) {
-        retryUntilSuccess(timeout, timeUnit, () -> {
+        retryUntilTrue(timeout, timeUnit, Timeouts.getDefaultTimeLimiter(), lambda);
+    }
+
+    /**
+     * Call a callable repeatedly until it returns true. If an exception is thrown, the call
+     * will be retried repeatedly until the timeout is hit. The calls are made on a thread belonging to the given
+     * time limiter - for example, a virtual thread or a bounded pool.
+     *
+     * @param timeout     how long to wait
+     * @param timeUnit    time unit for time interval
+     * @param timeLimiter time limiter to run the calls with
+     * @param lambda      supplier lambda expression
+     */
+    public static void retryUntilTrue(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final TimeLimiter timeLimiter, @NotNull final Callable<Boolean> lambda) {
+        retryUntilTrue(timeout, timeUnit, timeLimiter, RetryPolicy.DEFAULT, lambda);
+    }
+
+    /**
+     * Call a callable repeatedly until it returns true. If an exception is thrown or false is returned, the call
+     * will be retried according to the given retry policy until the timeout is hit.
+     *
+     * @param timeout     how long to wait
+     * @param timeUnit    time unit for time interval
+     * @param retryPolicy policy controlling the backoff between attempts
+     * @param lambda      supplier lambda expression
+     */
+    public static void retryUntilTrue(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final RetryPolicy retryPolicy, @NotNull final Callable<Boolean> lambda) {
+        retryUntilTrue(timeout, timeUnit, Timeouts.getDefaultTimeLimiter(), retryPolicy, lambda);
+    }
+
+    /**
+     * Call a callable repeatedly until it returns true. If an exception is thrown or false is returned, the call
+     * will be retried according to the given retry policy until the timeout is hit. The calls are made on a thread
+     * belonging to the given time limiter.
+     *
+     * @param timeout     how long to wait
+     * @param timeUnit    time unit for time interval
+     * @param timeLimiter time limiter to run the calls with
+     * @param retryPolicy policy controlling the backoff between attempts
+     * @param lambda      supplier lambda expression
+     */
+    public static void retryUntilTrue(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final TimeLimiter timeLimiter, @NotNull final RetryPolicy retryPolicy, @NotNull final Callable<Boolean> lambda) {
+        retryUntilSuccess(timeout, timeUnit, timeLimiter, retryPolicy, () -> {
+            if (!lambda.call()) {
+                throw NotReadyException.INSTANCE;
+            } else {
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Call a callable repeatedly until it returns true. Rather than only polling, the callable is called again as soon
+     * as the given signal is given, so the wait finishes as soon as the condition holds. Polling every 100ms continues
+     * as a fallback until the timeout is hit.
+     *
+     * @param timeout  how long to wait
+     * @param timeUnit time unit for time interval
+     * @param signal   signal which is given when the condition may have changed
+     * @param lambda   supplier lambda expression
+     */
+    public static void retryUntilTrue(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final Signal signal, @NotNull final Callable<Boolean> lambda) {
+        retryUntilTrue(timeout, timeUnit, RetryPolicy.DEFAULT, signal, lambda);
+    }
+
+    /**
+     * Call a callable repeatedly until it returns true. The callable is called again as soon as the given signal is
+     * given, and otherwise according to the given retry policy, until the timeout is hit.
+     *
+     * @param timeout     how long to wait
+     * @param timeUnit    time unit for time interval
+     * @param retryPolicy policy controlling the backoff between attempts, when no signal is given
+     * @param signal      signal which is given when the condition may have changed
+     * @param lambda      supplier lambda expression
+     */
+    public static void retryUntilTrue(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final RetryPolicy retryPolicy, @NotNull final Signal signal, @NotNull final Callable<Boolean> lambda) {
+        retryUntilSuccess(timeout, timeUnit, retryPolicy, signal, () -> {
+            if (!lambda.call()) {
+                throw NotReadyException.INSTANCE;
+            } else {
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Call a callable repeatedly on the calling thread until it returns true. If an exception is thrown, the call
+     * will be retried repeatedly until the timeout is hit.
+     *
+     * @param timeout  how long to wait
+     * @param timeUnit time unit for time interval
+     * @param lambda   supplier lambda expression
+     * @see #retryUntilSuccessOnCallingThread(int, TimeUnit, Callable)
+     */
+    public static void retryUntilTrueOnCallingThread(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final Callable<Boolean> lambda) {
+        retryUntilTrueOnCallingThread(timeout, timeUnit, RetryPolicy.DEFAULT, lambda);
+    }
+
+    /**
+     * Call a callable repeatedly on the calling thread until it returns true. If an exception is thrown, the call
+     * will be retried according to the given retry policy until the timeout is hit.
+     *
+     * @param timeout     how long to wait
+     * @param timeUnit    time unit for time interval
+     * @param retryPolicy policy controlling the backoff between attempts
+     * @param lambda      supplier lambda expression
+     * @see #retryUntilSuccessOnCallingThread(int, TimeUnit, RetryPolicy, Callable)
+     */
+    public static void retryUntilTrueOnCallingThread(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final RetryPolicy retryPolicy,
+                                                     @NotNull final Callable<Boolean> lambda) {
+        retryUntilSuccessOnCallingThread(timeout, timeUnit, retryPolicy, () -> {
             if (!lambda.call()) {
-                throw new RuntimeException("Not ready yet");
+                throw NotReadyException.INSTANCE;
             } else {
                 return null;
             }
@@ -114,12 +519,532 @@ public abstract class Unreliables {
      * @param lambda   supplier lambda expression
      */
     public static void retryUntilTrue(final int tryLimit, @NotNull final Callable<Boolean> lambda) {
-        retryUntilSuccess(tryLimit, () -> {
+        retryUntilTrue(tryLimit, RetryPolicy.DEFAULT, lambda);
+    }
+
+    /**
+     * Call a callable repeatedly until it returns true. If an exception is thrown or false is returned, the call
+     * will be retried according to the given retry policy until the retry limit is hit.
+     *
+     * @param tryLimit    how many times to try calling the supplier
+     * @param retryPolicy policy controlling the backoff between attempts
+     * @param lambda      supplier lambda expression
+     */
+    public static void retryUntilTrue(final int tryLimit, @NotNull final RetryPolicy retryPolicy, @NotNull final Callable<Boolean> lambda) {
+        retryUntilSuccess(tryLimit, retryPolicy, () -> {
             if (!lambda.call()) {
-                throw new RuntimeException("Not ready yet");
+                throw NotReadyException.INSTANCE;
             } else {
                 return null;
             }
         });
     }
+
+    /**
+     * Call a supplier asynchronously and repeatedly until it returns a result. If an exception is thrown, the call
+     * will be retried until the timeout is hit, at which point the returned future completes exceptionally with a
+     * TimeoutException.
+     *
+     * Attempts are run on the common fork/join pool, and no thread is blocked between attempts.
+     *
+     * @param timeout  how long to wait
+     * @param timeUnit time unit for time interval
+     * @param lambda   supplier lambda expression (may throw checked exceptions)
+     * @param <T>      return type of the supplier
+     * @return a future which completes with the result of the successful lambda expression call
+     */
+    public static <T> CompletableFuture<T> retryUntilSuccessAsync(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final Callable<T> lambda) {
+        return retryUntilSuccessAsync(timeout, timeUnit, RetryPolicy.DEFAULT, ForkJoinPool.commonPool(), lambda);
+    }
+
+    /**
+     * Call a supplier asynchronously and repeatedly until it returns a result. If an exception is thrown, the call
+     * will be retried according to the given retry policy until the timeout is hit, at which point the returned
+     * future completes exceptionally with a TimeoutException.
+     *
+     * Attempts are run on the given executor. Backoff delays and the timeout are tracked by a shared timer, so no
+     * thread is blocked between attempts.
+     *
+     * @param timeout     how long to wait
+     * @param timeUnit    time unit for time interval
+     * @param retryPolicy policy controlling the backoff between attempts
+     * @param executor    executor to run attempts on
+     * @param lambda      supplier lambda expression (may throw checked exceptions)
+     * @param <T>         return type of the supplier
+     * @return a future which completes with the result of the successful lambda expression call
+     */
+    public static <T> CompletableFuture<T> retryUntilSuccessAsync(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final RetryPolicy retryPolicy,
+                                                                  @NotNull final Executor executor, @NotNull final Callable<T> lambda) {
+
+        check("timeout must be greater than zero", timeout > 0);
+
+        final long timeoutNanos;
+        try {
+            timeoutNanos = Deadline.clampToCurrent(timeout, timeUnit);
+        } catch (DeadlineExceededException e) {
+            final CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        return AsyncRetry.withTimeout(timeoutNanos, retryPolicy, executor, lambda);
+    }
+
+    /**
+     * Call a supplier asynchronously and repeatedly until it returns a result. If an exception is thrown, the call
+     * will be retried until the retry limit is hit, at which point the returned future completes exceptionally with a
+     * RetryCountExceededException.
+     *
+     * Attempts are run on the common fork/join pool.
+     *
+     * @param tryLimit how many times to try calling the supplier
+     * @param lambda   supplier lambda expression (may throw checked exceptions)
+     * @param <T>      return type of the supplier
+     * @return a future which completes with the result of the successful lambda expression call
+     */
+    public static <T> CompletableFuture<T> retryUntilSuccessAsync(final int tryLimit, @NotNull final Callable<T> lambda) {
+        return retryUntilSuccessAsync(tryLimit, RetryPolicy.DEFAULT, ForkJoinPool.commonPool(), lambda);
+    }
+
+    /**
+     * Call a supplier asynchronously and repeatedly until it returns a result. If an exception is thrown, the call
+     * will be retried according to the given retry policy until the retry limit is hit, at which point the returned
+     * future completes exceptionally with a RetryCountExceededException.
+     *
+     * Attempts are run on the given executor. Backoff delays are tracked by a shared timer, so no thread is blocked
+     * between attempts.
+     *
+     * @param tryLimit    how many times to try calling the supplier
+     * @param retryPolicy policy controlling the backoff between attempts
+     * @param executor    executor to run attempts on
+     * @param lambda      supplier lambda expression (may throw checked exceptions)
+     * @param <T>         return type of the supplier
+     * @return a future which completes with the result of the successful lambda expression call
+     */
+    public static <T> CompletableFuture<T> retryUntilSuccessAsync(final int tryLimit, @NotNull final RetryPolicy retryPolicy,
+                                                                  @NotNull final Executor executor, @NotNull final Callable<T> lambda) {
+
+        check("tryLimit must be greater than zero", tryLimit > 0);
+
+        return AsyncRetry.withTryLimit(tryLimit, retryPolicy, executor, lambda);
+    }
+
+    /**
+     * Process a collection of items with a batch call, retrying only the items which fail. Each round, the items
+     * still outstanding are split into batches of up to the batch size and passed to the batch call, so failed items
+     * from different batches are gathered together. The cost of retrying depends on how many items fail, not on the
+     * size of the collection.
+     *
+     * Items are used as map keys, so must implement equals and hashCode; duplicates are only processed once. If the
+     * batch call throws an exception, every item in that batch is treated as having failed.
+     *
+     * If items are still failing when the timeout is hit, a TimeoutException is thrown. Its cause is a
+     * {@link BatchIncompleteException} holding the results which were obtained.
+     *
+     * @param timeout     how long to wait
+     * @param timeUnit    time unit for time interval
+     * @param retryPolicy policy controlling the backoff between rounds
+     * @param batchSize   the most items to pass to each batch call
+     * @param items       the items to process
+     * @param lambda      batch call lambda expression (may throw checked exceptions)
+     * @param <I>         type of the items
+     * @param <R>         type of the result for each item
+     * @return results for every item, keyed by item
+     */
+    public static <I, R> Map<I, R> retryUntilAllSucceed(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final RetryPolicy retryPolicy,
+                                                        final int batchSize, @NotNull final Collection<I> items, @NotNull final BatchCallable<I, R> lambda) {
+
+        check("timeout must be greater than zero", timeout > 0);
+        check("batch size must be greater than zero", batchSize > 0);
+
+        final BatchRetry<I, R> batchRetry = new BatchRetry<>(retryPolicy, batchSize, items, lambda);
+        try {
+            return Timeouts.getDefaultTimeLimiter().getWithTimeout(timeout, timeUnit, () -> batchRetry.run(Integer.MAX_VALUE));
+        } catch (org.rnorth.ducttape.TimeoutException e) {
+            batchRetry.giveUp();
+            throw new org.rnorth.ducttape.TimeoutException("Timeout waiting for all items to succeed", batchRetry.incomplete("Some items did not succeed"));
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                // Thrown by the retry loop itself, e.g. because retries were aborted or the budget was exhausted
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Process a collection of items with a single batch call, retrying only the items which fail, until the timeout
+     * is hit.
+     *
+     * @param timeout  how long to wait
+     * @param timeUnit time unit for time interval
+     * @param items    the items to process
+     * @param lambda   batch call lambda expression (may throw checked exceptions)
+     * @param <I>      type of the items
+     * @param <R>      type of the result for each item
+     * @return results for every item, keyed by item
+     * @see #retryUntilAllSucceed(int, TimeUnit, RetryPolicy, int, Collection, BatchCallable)
+     */
+    public static <I, R> Map<I, R> retryUntilAllSucceed(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final Collection<I> items,
+                                                        @NotNull final BatchCallable<I, R> lambda) {
+        return retryUntilAllSucceed(timeout, timeUnit, RetryPolicy.DEFAULT, Integer.MAX_VALUE, items, lambda);
+    }
+
+    /**
+     * Process a collection of items with a batch call, retrying only the items which fail, until the retry limit is
+     * hit. If items are still failing by then, a RetryCountExceededException is thrown. Its cause is a
+     * {@link BatchIncompleteException} holding the results which were obtained. If the thread is interrupted while
+     * backing off, a RuntimeException wrapping the InterruptedException is thrown, and the thread's interrupt status
+     * is restored.
+     *
+     * @param tryLimit    how many rounds of batch calls to make
+     * @param retryPolicy policy controlling the backoff between rounds
+     * @param batchSize   the most items to pass to each batch call
+     * @param items       the items to process
+     * @param lambda      batch call lambda expression (may throw checked exceptions)
+     * @param <I>         type of the items
+     * @param <R>         type of the result for each item
+     * @return results for every item, keyed by item
+     * @see #retryUntilAllSucceed(int, TimeUnit, RetryPolicy, int, Collection, BatchCallable)
+     */
+    public static <I, R> Map<I, R> retryUntilAllSucceed(final int tryLimit, @NotNull final RetryPolicy retryPolicy, final int batchSize,
+                                                        @NotNull final Collection<I> items, @NotNull final BatchCallable<I, R> lambda) {
+
+        check("tryLimit must be greater than zero", tryLimit > 0);
+        check("batch size must be greater than zero", batchSize > 0);
+
+        final BatchRetry<I, R> batchRetry = new BatchRetry<>(retryPolicy, batchSize, items, lambda);
+        try {
+            return batchRetry.run(tryLimit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting to retry", e);
+        }
+    }
+
+    /**
+     * Process a collection of items with a single batch call, retrying only the items which fail, until the retry
+     * limit is hit.
+     *
+     * @param tryLimit how many batch calls to make
+     * @param items    the items to process
+     * @param lambda   batch call lambda expression (may throw checked exceptions)
+     * @param <I>      type of the items
+     * @param <R>      type of the result for each item
+     * @return results for every item, keyed by item
+     * @see #retryUntilAllSucceed(int, RetryPolicy, int, Collection, BatchCallable)
+     */
+    public static <I, R> Map<I, R> retryUntilAllSucceed(final int tryLimit, @NotNull final Collection<I> items, @NotNull final BatchCallable<I, R> lambda) {
+        return retryUntilAllSucceed(tryLimit, RetryPolicy.DEFAULT, Integer.MAX_VALUE, items, lambda);
+    }
+
+    /**
+     * Call many independent suppliers concurrently, retrying each until it returns a result, all within one overall
+     * timeout. The time taken approaches that of the slowest supplier, rather than the sum of all of them.
+     *
+     * No more than the given number of attempts run at once. If any supplier does not succeed before the timeout (or
+     * gives up for any other reason), the remaining suppliers are abandoned and its exception is thrown.
+     *
+     * @param timeout        how long to wait for all suppliers to succeed
+     * @param timeUnit       time unit for time interval
+     * @param maxConcurrency the most attempts to run at once
+     * @param lambdas        supplier lambda expressions (may throw checked exceptions)
+     * @param <T>            return type of the suppliers
+     * @return the results of the suppliers, in the same order
+     */
+    public static <T> List<T> retryAllUntilSuccess(final int timeout, @NotNull final TimeUnit timeUnit, final int maxConcurrency,
+                                                   @NotNull final Collection<? extends Callable<T>> lambdas) {
+        return retryAllUntilSuccess(timeout, timeUnit, RetryPolicy.DEFAULT, maxConcurrency, lambdas);
+    }
+
+    /**
+     * Call many independent suppliers concurrently, retrying each according to the given retry policy until it
+     * returns a result, all within one overall timeout.
+     *
+     * @param timeout        how long to wait for all suppliers to succeed
+     * @param timeUnit       time unit for time interval
+     * @param retryPolicy    policy controlling the backoff between attempts
+     * @param maxConcurrency the most attempts to run at once
+     * @param lambdas        supplier lambda expressions (may throw checked exceptions)
+     * @param <T>            return type of the suppliers
+     * @return the results of the suppliers, in the same order
+     * @see #retryAllUntilSuccess(int, TimeUnit, int, Collection)
+     */
+    public static <T> List<T> retryAllUntilSuccess(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final RetryPolicy retryPolicy,
+                                                   final int maxConcurrency, @NotNull final Collection<? extends Callable<T>> lambdas) {
+
+        final List<CompletableFuture<T>> futures = retryAllUntilSuccessAsync(timeout, timeUnit, retryPolicy, maxConcurrency, WorkerExecutorHolder.EXECUTOR, lambdas);
+
+        // Complete as soon as every supplier has succeeded, or any one has given up
+        final CompletableFuture<Void> outcome = new CompletableFuture<>();
+        for (CompletableFuture<T> future : futures) {
+            future.whenComplete((value, failure) -> {
+                if (failure != null) {
+                    outcome.completeExceptionally(failure);
+                }
+            });
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenRun(() -> outcome.complete(null));
+
+        try {
+            outcome.get();
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new org.rnorth.ducttape.TimeoutException(e);
+        }
+
+        final List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    /**
+     * Call many independent callables concurrently, retrying each until it returns true, all within one overall
+     * timeout. For example, this can be used to wait for many services to become ready at once. Each callable is
+     * checked again every 100ms until it returns true.
+     *
+     * @param timeout        how long to wait for all callables to return true
+     * @param timeUnit       time unit for time interval
+     * @param maxConcurrency the most attempts to run at once
+     * @param lambdas        callable lambda expressions
+     * @see #retryAllUntilSuccess(int, TimeUnit, int, Collection)
+     */
+    public static void retryAllUntilTrue(final int timeout, @NotNull final TimeUnit timeUnit, final int maxConcurrency,
+                                         @NotNull final Collection<? extends Callable<Boolean>> lambdas) {
+        retryAllUntilTrue(timeout, timeUnit, READINESS_POLICY, maxConcurrency, lambdas);
+    }
+
+    /**
+     * Call many independent callables concurrently, retrying each according to the given retry policy until it
+     * returns true, all within one overall timeout.
+     *
+     * @param timeout        how long to wait for all callables to return true
+     * @param timeUnit       time unit for time interval
+     * @param retryPolicy    policy controlling the backoff between attempts of each callable
+     * @param maxConcurrency the most attempts to run at once
+     * @param lambdas        callable lambda expressions
+     * @see #retryAllUntilTrue(int, TimeUnit, int, Collection)
+     */
+    public static void retryAllUntilTrue(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final RetryPolicy retryPolicy,
+                                         final int maxConcurrency, @NotNull final Collection<? extends Callable<Boolean>> lambdas) {
+        final List<Callable<Object>> untilTrue = new ArrayList<>(lambdas.size());
+        for (Callable<Boolean> lambda : lambdas) {
+            untilTrue.add(() -> {
+                if (!lambda.call()) {
+                    throw NotReadyException.INSTANCE;
+                } else {
+                    return null;
+                }
+            });
+        }
+        retryAllUntilSuccess(timeout, timeUnit, retryPolicy, maxConcurrency, untilTrue);
+    }
+
+    /**
+     * Call many independent suppliers concurrently and asynchronously, retrying each according to the given retry
+     * policy until it returns a result, all within one overall timeout. A future is returned for each supplier, which
+     * completes as soon as that supplier succeeds, or exceptionally if it does not succeed before the timeout.
+     *
+     * Attempts are run on the given executor, but no more than the given number at once. No thread is blocked
+     * between attempts.
+     *
+     * @param timeout        how long to wait for all suppliers to succeed
+     * @param timeUnit       time unit for time interval
+     * @param retryPolicy    policy controlling the backoff between attempts
+     * @param maxConcurrency the most attempts to run at once
+     * @param executor       executor to run attempts on
+     * @param lambdas        supplier lambda expressions (may throw checked exceptions)
+     * @param <T>            return type of the suppliers
+     * @return futures for the results of the suppliers, in the same order
+     */
+    public static <T> List<CompletableFuture<T>> retryAllUntilSuccessAsync(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final RetryPolicy retryPolicy,
+                                                                         final int maxConcurrency, @NotNull final Executor executor,
+                                                                         @NotNull final Collection<? extends Callable<T>> lambdas) {
+
+        check("timeout must be greater than zero", timeout > 0);
+        check("max concurrency must be greater than zero", maxConcurrency > 0);
+
+        final List<CompletableFuture<T>> futures = new ArrayList<>(lambdas.size());
+
+        final long timeoutNanos;
+        try {
+            timeoutNanos = Deadline.clampToCurrent(timeout, timeUnit);
+        } catch (DeadlineExceededException e) {
+            for (int i = 0; i < lambdas.size(); i++) {
+                final CompletableFuture<T> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                futures.add(failed);
+            }
+            return futures;
+        }
+
+        // Every supplier shares the same deadline, and the same limit on concurrent attempts
+        final Deadline deadline = Deadline.nested(timeoutNanos, TimeUnit.NANOSECONDS);
+        final Executor boundedExecutor = new BoundedExecutor(executor, maxConcurrency);
+        for (Callable<T> lambda : lambdas) {
+            futures.add(AsyncRetry.withDeadline(deadline, retryPolicy, boundedExecutor, lambda));
+        }
+        return futures;
+    }
+
+    /**
+     * Call a supplier, starting further attempts in parallel if it is slow to return, and return the first successful
+     * result. This reduces tail latency for calls which are usually quick but occasionally slow for reasons which do
+     * not affect a fresh attempt (e.g. a slow server or a lost packet). Attempts which are still running once a result
+     * has been obtained are interrupted.
+     *
+     * Attempts are made according to the hedge policy: when the hedge delay passes or an attempt fails, another is
+     * started, until the policy's maximum number of attempts is reached. The supplier must be idempotent, since more
+     * than one attempt may run to completion.
+     *
+     * @param timeout     how long to wait for a successful result
+     * @param timeUnit    time unit for time interval
+     * @param hedgePolicy policy controlling when further attempts are started
+     * @param lambda      supplier lambda expression (may throw checked exceptions)
+     * @param <T>         return type of the supplier
+     * @return the result of the first successful lambda expression call
+     */
+    public static <T> T getWithHedging(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final HedgePolicy hedgePolicy, @NotNull final Callable<T> lambda) {
+
+        check("timeout must be greater than zero", timeout > 0);
+
+        final long timeoutNanos = Deadline.clampToCurrent(timeout, timeUnit);
+        final CompletableFuture<T> future = HedgedCall.start(timeoutNanos, hedgePolicy, WorkerExecutorHolder.EXECUTOR, lambda);
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new org.rnorth.ducttape.TimeoutException(e);
+        }
+    }
+
+    /**
+     * Call a supplier asynchronously, starting further attempts in parallel if it is slow to return. The returned
+     * future completes with the first successful result, or exceptionally with a TimeoutException if there is none
+     * before the timeout expires.
+     *
+     * @param timeout     how long to wait for a successful result
+     * @param timeUnit    time unit for time interval
+     * @param hedgePolicy policy controlling when further attempts are started
+     * @param executor    executor to run attempts on
+     * @param lambda      supplier lambda expression (may throw checked exceptions)
+     * @param <T>         return type of the supplier
+     * @return a future which completes with the result of the first successful lambda expression call
+     * @see #getWithHedging(int, TimeUnit, HedgePolicy, Callable)
+     */
+    public static <T> CompletableFuture<T> getWithHedgingAsync(final int timeout, @NotNull final TimeUnit timeUnit, @NotNull final HedgePolicy hedgePolicy,
+                                                               @NotNull final Executor executor, @NotNull final Callable<T> lambda) {
+
+        check("timeout must be greater than zero", timeout > 0);
+
+        final long timeoutNanos;
+        try {
+            timeoutNanos = Deadline.clampToCurrent(timeout, timeUnit);
+        } catch (DeadlineExceededException e) {
+            final CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        return HedgedCall.start(timeoutNanos, hedgePolicy, executor, lambda);
+    }
+
+    private static <T> T retryUntilDeadline(@NotNull final Deadline deadline, @NotNull final RetryPolicy retryPolicy, @NotNull final Callable<T> lambda) {
+
+        int attempt = 0;
+        long delay = 0;
+        Exception lastException = null;
+        final long callStart = System.nanoTime();
+
+        try {
+            do {
+                final long attemptStart = retryPolicy.attemptStarted(attempt + 1);
+                try {
+                    final T result = lambda.call();
+                    if (!retryPolicy.isRetryableResult(result)) {
+                        retryPolicy.attemptSucceeded(attempt + 1, attemptStart, callStart);
+                        if (attempt == 0) {
+                            retryPolicy.recordFirstAttemptSuccess();
+                        }
+                        return result;
+                    }
+                    lastException = NotReadyException.INSTANCE;
+                } catch (Exception e) {
+                    lastException = e;
+                }
+                retryPolicy.attemptFailed(++attempt, attemptStart, callStart, lastException);
+                if (!retryPolicy.isRetryable(lastException)) {
+                    throw new RetryAbortedException("Not retrying after non-retryable exception", lastException);
+                }
+
+                if (deadline.isExpired()) {
+                    break;
+                }
+                if (!retryPolicy.tryRetry()) {
+                    throw new RetryBudgetExhaustedException("Retry budget exhausted", lastException);
+                }
+                delay = retryPolicy.nextDelayNanos(attempt, delay);
+                try {
+                    backOff(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting to retry", e);
+                }
+            } while (!deadline.isExpired());
+
+            throw new org.rnorth.ducttape.TimeoutException("Timeout waiting for result with exception", lastException);
+        } catch (RuntimeException e) {
+            retryPolicy.gaveUp(attempt, callStart, lastException);
+            throw e;
+        }
+    }
+
+    /**
+     * Wait before the next attempt, but never beyond the deadline in effect (if any).
+     */
+    static void backOff(final long delayNanos) throws InterruptedException {
+        if (delayNanos <= 0) {
+            return;
+        }
+        final Deadline deadline = Deadline.current();
+        final long sleepNanos = deadline == null ? delayNanos : Math.min(delayNanos, deadline.timeRemaining(TimeUnit.NANOSECONDS));
+        TimeUnit.NANOSECONDS.sleep(sleepNanos);
+    }
+
+    /**
+     * Wait before the next attempt, as for {@link #backOff(long)}, but stop waiting early if the signal (if any) is
+     * given after the given generation. When waiting on a signal, a retry policy without backoff still polls at the
+     * fallback interval, rather than checking again straight away.
+     */
+    private static void backOff(final long delayNanos, @Nullable final Signal signal, final long generation) throws InterruptedException {
+        if (signal == null) {
+            backOff(delayNanos);
+            return;
+        }
+        final long waitNanos = delayNanos > 0 ? delayNanos : SIGNAL_FALLBACK_POLL_NANOS;
+        final Deadline deadline = Deadline.current();
+        signal.await(generation, deadline == null ? waitNanos : Math.min(waitNanos, deadline.timeRemaining(TimeUnit.NANOSECONDS)));
+    }
+
+    /**
+     * Runs attempts for the blocking hedging and fan-out APIs. Attempts may block for a long time and may be
+     * interrupted, so they are not run on the common fork/join pool.
+     */
+    private static final class WorkerExecutorHolder {
+
+        static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new DaemonThreadFactory("ducttape-worker-"));
+    }
 }
@@ -0,0 +1,211 @@
+package org.rnorth.ducttape;
+
+import org.junit.Test;
+import org.rnorth.ducttape.circuitbreakers.Breaker;
+import org.rnorth.ducttape.circuitbreakers.BreakerBuilder;
+import org.rnorth.ducttape.circuitbreakers.State;
+import org.rnorth.ducttape.ratelimits.RateLimiter;
+import org.rnorth.ducttape.ratelimits.RateLimiterBuilder;
+import org.rnorth.ducttape.timeouts.Timeouts;
+import org.rnorth.ducttape.unreliables.Unreliables;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.rnorth.visibleassertions.VisibleAssertions.assertEquals;
+import static org.rnorth.visibleassertions.VisibleAssertions.assertFalse;
+import static org.rnorth.visibleassertions.VisibleAssertions.assertNotNull;
+import static org.rnorth.visibleassertions.VisibleAssertions.assertNull;
+import static org.rnorth.visibleassertions.VisibleAssertions.assertThrows;
+import static org.rnorth.visibleassertions.VisibleAssertions.assertTrue;
+
+/**
+ * Tests for Deadline propagation through the other utilities.
+ */
+public class DeadlineTest {
+
+    @Test
+    public void deadlineIsOnlyInEffectDuringCall() throws Exception {
+        assertNull("No deadline is in effect by default", Deadline.current());
+
+        Deadline deadline = Deadline.after(1, TimeUnit.SECONDS);
+        Deadline inEffect = deadline.call(Deadline::current);
+
+        assertEquals("The deadline is in effect during the call", deadline, inEffect);
+        assertNull("The deadline is no longer in effect after the call", Deadline.current());
+    }
+
+    @Test
+    public void earlierDeadlineTakesPrecedence() throws Exception {
+        Deadline outer = Deadline.after(100, TimeUnit.MILLISECONDS);
+
+        Deadline inEffect = outer.call(() -> Deadline.after(10, TimeUnit.SECONDS).call(Deadline::current));
+
+        assertEquals("A later nested deadline does not extend the outer one", outer, inEffect);
+    }
+
+    @Test
+    public void timeoutIsClampedToDeadline() {
+        long start = System.nanoTime();
+
+        assertThrows("The inner timeout is reduced to fit the deadline", TimeoutException.class, () -> {
+            Deadline.after(100, TimeUnit.MILLISECONDS).run(() -> {
+                Timeouts.getWithTimeout(5, TimeUnit.SECONDS, () -> {
+                    Thread.sleep(2000L);
+                    return "result";
+                });
+            });
+        });
+
+        assertTrue("The call gave up at the deadline", System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void deadlinePropagatesIntoTimedLambda() {
+        Deadline inEffect = Timeouts.getWithTimeout(1, TimeUnit.SECONDS, Deadline::current);
+
+        assertNotNull("The lambda runs with a deadline in effect", inEffect);
+        assertTrue("The deadline matches the timeout", inEffect.timeRemaining(TimeUnit.MILLISECONDS) <= 1000);
+    }
+
+    @Test
+    public void workIsNotStartedAfterDeadline() {
+        AtomicBoolean called = new AtomicBoolean();
+        Deadline expired = Deadline.after(0, TimeUnit.MILLISECONDS);
+
+        assertThrows("Work is skipped once the deadline has expired", DeadlineExceededException.class, () -> {
+            expired.run(() -> Timeouts.getWithTimeout(1, TimeUnit.SECONDS, () -> called.getAndSet(true)));
+        });
+        assertFalse("The lambda is never called", called.get());
+    }
+
+    @Test
+    public void retriesStopAtDeadline() {
+        AtomicInteger attempts = new AtomicInteger();
+        long start = System.nanoTime();
+
+        assertThrows("Retries stop when the deadline expires", DeadlineExceededException.class, () -> {
+            Deadline.after(100, TimeUnit.MILLISECONDS).run(() -> {
+                Unreliables.retryUntilSuccess(1000, () -> {
+                    attempts.incrementAndGet();
+                    Thread.sleep(20L);
+                    throw new IllegalStateException("Always fails");
+                });
+            });
+        });
+
+        assertTrue("Fewer attempts are made than the retry limit", attempts.get() < 1000);
+        assertTrue("The retries gave up at the deadline", System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void rateLimiterDoesNotWaitBeyondDeadline() throws Exception {
+        RateLimiter rateLimiter = RateLimiterBuilder.newBuilder()
+                                                    .withRate(1, TimeUnit.MINUTES)
+                                                    .withConstantThroughput()
+                                                    .build();
+        rateLimiter.doWhenReady(() -> { });
+
+        long start = System.nanoTime();
+        assertThrows("A call which the rate limit would delay past the deadline is skipped", DeadlineExceededException.class, () -> {
+            Deadline.after(1, TimeUnit.SECONDS).run(() -> rateLimiter.doWhenReady(() -> { }));
+        });
+        assertTrue("The rate limiter did not wait", System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    @Test
+    public void breakerIsNotTrippedByExpiredDeadline() throws Exception {
+        Breaker breaker = BreakerBuilder.newBuilder().build();
+        Deadline expired = Deadline.after(0, TimeUnit.MILLISECONDS);
+
+        String result = expired.call(() -> breaker.tryGet(() -> "called", () -> "fallback"));
+
+        assertEquals("The fallback is used once the deadline has expired", "fallback", result);
+        assertEquals("The breaker is not tripped", State.OK, breaker.getState());
+    }
+
+    @Test
+    public void breakerIsNotTrippedWhenNestedWorkHitsDeadline() throws Exception {
+        Breaker breaker = BreakerBuilder.newBuilder().build();
+        RateLimiter rateLimiter = RateLimiterBuilder.newBuilder()
+                                                    .withRate(1, TimeUnit.SECONDS)
+                                                    .withConstantThroughput()
+                                                    .build();
+        rateLimiter.doWhenReady(() -> { });
+
+        String result = Deadline.after(100, TimeUnit.MILLISECONDS).call(() -> breaker.tryGet(() -> {
+            // The rate limiter can't allow another call before the deadline, so gives up straight away
+            return rateLimiter.getWhenReady(() -> "called");
+        }, () -> "fallback"));
+
+        assertEquals("The fallback is used when nested work gives up at the deadline", "fallback", result);
+        assertEquals("The breaker is not tripped", State.OK, breaker.getState());
+    }
+
+    @Test
+    public void veryLongOrNegativeDurationsDoNotOverflow() throws Exception {
+        Deadline distant = Deadline.after(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        Deadline past = Deadline.after(Long.MIN_VALUE, TimeUnit.NANOSECONDS);
+
+        assertFalse("A very distant deadline has not expired", distant.isExpired());
+        assertTrue("A very distant deadline has a long time remaining", distant.timeRemaining(TimeUnit.DAYS) > 365);
+        assertTrue("A deadline with a very negative duration has expired", past.isExpired());
+
+        String result = Timeouts.getWithTimeout(Integer.MAX_VALUE, TimeUnit.DAYS, () -> {
+            return Timeouts.getWithTimeout(1, TimeUnit.SECONDS, () -> "result");
+        });
+        assertEquals("A very long timeout does not expire straight away", "result", result);
+    }
+
+    @Test
+    public void nestedDeadlineIsNoLaterThanCurrent() throws Exception {
+        Deadline outer = Deadline.after(100, TimeUnit.MILLISECONDS);
+
+        Deadline nested = outer.call(() -> Deadline.nested(1, TimeUnit.HOURS));
+
+        assertTrue("A nested deadline is capped at the current deadline", nested.timeRemaining(TimeUnit.MILLISECONDS) <= 100L);
+    }
+
+    @Test
+    public void cancelledDeadlineIsExpired() throws Exception {
+        Deadline outer = Deadline.after(1, TimeUnit.HOURS);
+        Deadline nested = outer.call(() -> Deadline.nested(1, TimeUnit.HOURS));
+
+        outer.cancel();
+
+        assertTrue("A cancelled deadline is expired", outer.isExpired());
+        assertTrue("A deadline nested within a cancelled deadline is expired", nested.isExpired());
+        assertEquals("No time remains before a cancelled deadline", 0L, nested.timeRemaining(TimeUnit.MILLISECONDS));
+        assertThrows("Calls are not started once the deadline has been cancelled", DeadlineExceededException.class, () -> {
+            outer.run(Deadline::checkCurrent);
+        });
+    }
+
+    @Test
+    public void deadlineIsPassedToLambda() throws Exception {
+        long remaining = Timeouts.getWithTimeout(500, TimeUnit.MILLISECONDS, deadline -> deadline.timeRemaining(TimeUnit.MILLISECONDS));
+
+        assertTrue("The lambda is given the deadline for the call", remaining > 0 && remaining <= 500L);
+    }
+
+    @Test
+    public void inFlightAttemptCanStopAtDeadline() throws Exception {
+        AtomicBoolean stopped = new AtomicBoolean();
+        long start = System.nanoTime();
+
+        assertThrows("The retries time out", TimeoutException.class, () -> {
+            Unreliables.retryUntilSuccess(200, TimeUnit.MILLISECONDS, deadline -> {
+                while (!deadline.isExpired()) {
+                    Thread.sleep(5L);
+                }
+                stopped.set(true);
+                throw new IllegalStateException("Gave up at the deadline");
+            });
+        });
+
+        Thread.sleep(100L);
+        assertTrue("The attempt in flight saw the deadline and stopped", stopped.get());
+        assertTrue("The attempt stopped promptly", System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    }
+}
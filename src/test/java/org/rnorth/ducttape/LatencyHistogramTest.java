@@ -0,0 +1,61 @@
+package org.rnorth.ducttape;
+
+import org.junit.Test;
+
+import static org.rnorth.visibleassertions.VisibleAssertions.assertEquals;
+import static org.rnorth.visibleassertions.VisibleAssertions.assertTrue;
+
+/**
+ * Tests for LatencyHistogram.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram(100);
+
+        assertEquals("An empty histogram reports zero for any percentile", 0L, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void percentilesAreAccurateToWithinABucket() {
+        LatencyHistogram histogram = new LatencyHistogram(100_000);
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        long median = histogram.getValueAtPercentile(50);
+        long p99 = histogram.getValueAtPercentile(99);
+
+        assertTrue("The median is at least the true value", median >= 500_000L);
+        assertTrue("The median is within a quarter of the true value", median <= 625_000L);
+        assertTrue("The 99th percentile is at least the true value", p99 >= 990_000L);
+        assertTrue("The 99th percentile is within a quarter of the true value", p99 <= 1_237_500L);
+    }
+
+    @Test
+    public void smallAndLargeValuesCanBeRecorded() {
+        LatencyHistogram histogram = new LatencyHistogram(100);
+        histogram.record(-1);
+        histogram.record(3);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals("Negative values are counted as zero", 0L, histogram.getValueAtPercentile(1));
+        assertEquals("Small values are counted exactly", 3L, histogram.getValueAtPercentile(50));
+        assertEquals("The largest value is counted", Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void oldSamplesDecay() {
+        LatencyHistogram histogram = new LatencyHistogram(100);
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1_000_000L);
+        }
+        for (int i = 0; i < 300; i++) {
+            histogram.record(1000L);
+        }
+
+        assertTrue("The window size is not exceeded", histogram.getCount() < 100);
+        assertTrue("Recent samples dominate the median", histogram.getValueAtPercentile(50) < 2000L);
+    }
+}
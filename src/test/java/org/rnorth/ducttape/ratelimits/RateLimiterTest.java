@@ -4,10 +4,22 @@ import org.junit.Test;
 import org.rnorth.ducttape.TimeoutException;
 import org.rnorth.ducttape.timeouts.Timeouts;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.rnorth.visibleassertions.VisibleAssertions.assertEquals;
+import static org.rnorth.visibleassertions.VisibleAssertions.assertFalse;
+import static org.rnorth.visibleassertions.VisibleAssertions.assertThrows;
 import static org.rnorth.visibleassertions.VisibleAssertions.assertTrue;
+import static org.rnorth.visibleassertions.VisibleAssertions.fail;
 
 /**
  * Tests for RateLimiter.
@@ -72,4 +84,374 @@ public class RateLimiterTest {
 
         assertEquals("The rate limiter returns a result", testWindow[0], lastValue[0]);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testTokenBucketKeepsToRateUnderContention() throws InterruptedException {
+
+        AtomicInteger executions = new AtomicInteger();
+
+        RateLimiter rateLimiter = RateLimiterBuilder.newBuilder()
+                                             .withRate(50, TimeUnit.SECONDS)
+                                             .withTokenBucket()
+                                             .build();
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        long stopAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        for (int i = 0; i < 16; i++) {
+            executor.execute(() -> {
+                while (System.nanoTime() - stopAt < 0) {
+                    rateLimiter.doWhenReady(() -> {
+                        if (System.nanoTime() - stopAt < 0) {
+                            executions.incrementAndGet();
+                        }
+                    });
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+
+        // Approximate estimates
+        assertTrue("The rate limiter should have kept executions from 16 threads at or below 101", executions.get() <= 101);
+        assertTrue("The rate limiter should allowed at least 80 executions", executions.get() >= 80);
+    }
+
+    @Test
+    public void testTokenBucketAllowsBurstUpToCapacity() {
+
+        int[] testWindow = new int[1];
+
+        RateLimiter rateLimiter = RateLimiterBuilder.newBuilder()
+                                             .withRate(1, TimeUnit.SECONDS)
+                                             .withTokenBucket(5)
+                                             .build();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.doWhenReady(() -> testWindow[0]++);
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals("Every call in the burst was made", 5, testWindow[0]);
+        assertTrue("A burst up to the capacity is not delayed", elapsed < 500);
+    }
+
+    @Test
+    public void testLimitExecutionsAboveOnePerMillisecond() {
+
+        int executions = countExecutionsInOneSecond(RateLimiterBuilder.newBuilder()
+                                             .withRate(5000, TimeUnit.SECONDS)
+                                             .withConstantThroughput()
+                                             .build());
+
+        // Approximate estimates
+        assertTrue("The rate limiter should have kept executions at or below 5050", executions <= 5050);
+        assertTrue("The rate limiter should allowed at least 4500 executions", executions >= 4500);
+    }
+
+    @Test
+    public void testLimitExecutionsWithoutRoundingToMilliseconds() {
+
+        int executions = countExecutionsInOneSecond(RateLimiterBuilder.newBuilder()
+                                             .withRate(300, TimeUnit.SECONDS)
+                                             .withConstantThroughput()
+                                             .build());
+
+        // Approximate estimates
+        assertTrue("The rate limiter should have kept executions at or below 302", executions <= 302);
+        assertTrue("The rate limiter should allowed at least 280 executions", executions >= 280);
+    }
+
+    @Test
+    public void testLimitExecutionsWithBatchedPermits() {
+
+        int executions = countExecutionsInOneSecond(RateLimiterBuilder.newBuilder()
+                                             .withRate(200_000, TimeUnit.SECONDS)
+                                             .withConstantThroughput(1000)
+                                             .build());
+
+        // Approximate estimates
+        assertTrue("The rate limiter should have kept executions at or below 201000", executions <= 201_000);
+        assertTrue("The rate limiter should allowed at least 150000 executions", executions >= 150_000);
+    }
+
+    private static int countExecutionsInOneSecond(RateLimiter rateLimiter) {
+        int executions = 0;
+        long stopAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (System.nanoTime() - stopAt < 0) {
+            rateLimiter.doWhenReady(() -> { });
+            executions++;
+        }
+        return executions;
+    }
+
+    @Test
+    public void testTryAcquireDoesNotWait() {
+
+        RateLimiter rateLimiter = RateLimiterBuilder.newBuilder()
+                                             .withRate(1, TimeUnit.MINUTES)
+                                             .withTokenBucket(3)
+                                             .build();
+
+        assertTrue("A permit is acquired when one is available", rateLimiter.tryAcquire());
+        assertTrue("Several permits are acquired when enough are available", rateLimiter.tryAcquire(2));
+
+        long start = System.nanoTime();
+        assertFalse("A permit is not acquired when none is available", rateLimiter.tryAcquire());
+        assertTrue("The caller is not made to wait", System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    public void testTryAcquireWithTimeout() throws InterruptedException {
+
+        RateLimiter rateLimiter = RateLimiterBuilder.newBuilder()
+                                             .withRate(10, TimeUnit.SECONDS)
+                                             .withConstantThroughput()
+                                             .build();
+
+        assertTrue("The first permit is acquired straight away", rateLimiter.tryAcquire(1, 0, TimeUnit.MILLISECONDS));
+        assertTrue("The next permit is acquired by waiting within the timeout", rateLimiter.tryAcquire(1, 500, TimeUnit.MILLISECONDS));
+
+        long start = System.nanoTime();
+        assertFalse("A permit which would not be available within the timeout is not acquired", rateLimiter.tryAcquire(1, 20, TimeUnit.MILLISECONDS));
+        assertTrue("The caller does not wait for a permit it will not get", System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(50));
+        assertTrue("A permit which is refused is not used up", rateLimiter.tryAcquire(1, 200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testInterruptWhileWaitingIsPropagated() throws Exception {
+
+        RateLimiter rateLimiter = RateLimiterBuilder.newBuilder()
+                                             .withRate(1, TimeUnit.MINUTES)
+                                             .withConstantThroughput()
+                                             .build();
+        rateLimiter.doWhenReady(() -> { });
+
+        AtomicBoolean interruptedExceptionThrown = new AtomicBoolean();
+        AtomicBoolean lambdaCalled = new AtomicBoolean();
+        Thread waiter = new Thread(() -> {
+            try {
+                rateLimiter.getWhenReady(() -> lambdaCalled.getAndSet(true));
+            } catch (InterruptedException e) {
+                interruptedExceptionThrown.set(true);
+            } catch (Exception ignored) { }
+        });
+        waiter.start();
+        Thread.sleep(100);
+        waiter.interrupt();
+        waiter.join(1000);
+
+        assertTrue("An InterruptedException is thrown when the waiting thread is interrupted", interruptedExceptionThrown.get());
+        assertFalse("The lambda is not called after an interrupt", lambdaCalled.get());
+
+        Thread.currentThread().interrupt();
+        try {
+            rateLimiter.doWhenReady(() -> lambdaCalled.set(true));
+            fail("doWhenReady should throw when the thread is interrupted while waiting");
+        } catch (RuntimeException e) {
+            assertTrue("The cause is an InterruptedException", e.getCause() instanceof InterruptedException);
+            assertTrue("The interrupt status is restored", Thread.interrupted());
+        }
+        assertFalse("The lambda is not called after an interrupt", lambdaCalled.get());
+    }
+
+    @Test
+    public void testGetWhenReadyAsyncQueuesWithoutBlockingThreads() throws Exception {
+
+        RateLimiter rateLimiter = RateLimiterBuilder.newBuilder()
+                                             .withRate(20, TimeUnit.SECONDS)
+                                             .withConstantThroughput()
+                                             .build();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        long start = System.nanoTime();
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(rateLimiter.getWhenReadyAsync(System::nanoTime, executor));
+        }
+        assertTrue("Queueing calls does not block the caller", System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(200));
+
+        long lastInvocation = futures.get(19).get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // Approximate estimates
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(lastInvocation - start);
+        assertTrue("20 calls at 20 per second are spread over at least 900ms", elapsedMillis >= 900);
+        assertTrue("All 20 calls are made on a single thread within 1500ms", elapsedMillis < 1500);
+    }
+
+    @Test
+    public void testGetWhenReadyAsyncCompletesWithException() throws Exception {
+
+        RateLimiter rateLimiter = RateLimiterBuilder.newBuilder()
+                                             .withRate(10, TimeUnit.SECONDS)
+                                             .withTokenBucket()
+                                             .build();
+
+        CompletableFuture<Void> permit = rateLimiter.acquireAsync();
+        CompletableFuture<String> failure = rateLimiter.getWhenReadyAsync(() -> {
+            throw new IllegalStateException("failed");
+        });
+
+        permit.get(1, TimeUnit.SECONDS);
+        try {
+            failure.get(1, TimeUnit.SECONDS);
+            fail("The future should complete exceptionally");
+        } catch (ExecutionException e) {
+            assertTrue("The future completes with the lambda's exception", e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testGetWhenReadyAsyncKeepsLambdaOffTimerThread() throws Exception {
+
+        RateLimiter rateLimiter = RateLimiterBuilder.newBuilder()
+                                             .withRate(10, TimeUnit.SECONDS)
+                                             .withConstantThroughput()
+                                             .build();
+
+        rateLimiter.acquireAsync().get(1, TimeUnit.SECONDS);
+        CompletableFuture<String> threadName = rateLimiter.getWhenReadyAsync(() -> {
+            Thread.sleep(500L);
+            return Thread.currentThread().getName();
+        }, Runnable::run);
+
+        // Queued behind the first permit, so the lambda is started by the timer
+        long start = System.nanoTime();
+        CountDownLatch timeout = new CountDownLatch(1);
+        Timeouts.newTimeout(150, TimeUnit.MILLISECONDS, timeout::countDown);
+        assertTrue("Other timeouts fire", timeout.await(1, TimeUnit.SECONDS));
+        assertTrue("Other timeouts are not held up by the lambda", System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(400));
+
+        assertFalse("The lambda is not run on the timer thread, even with a direct executor",
+                threadName.get(2, TimeUnit.SECONDS).equals("ducttape-timer"));
+    }
+
+    @Test
+    public void testGetWhenReadyAsyncSkipsCancelledCalls() throws Exception {
+
+        RateLimiter rateLimiter = RateLimiterBuilder.newBuilder()
+                                             .withRate(10, TimeUnit.SECONDS)
+                                             .withConstantThroughput()
+                                             .build();
+        AtomicBoolean lambdaCalled = new AtomicBoolean();
+
+        CompletableFuture<Void> permit = rateLimiter.acquireAsync();
+        CompletableFuture<String> cancelled = rateLimiter.getWhenReadyAsync(() -> {
+            lambdaCalled.set(true);
+            return "result";
+        });
+        cancelled.cancel(false);
+
+        permit.get(1, TimeUnit.SECONDS);
+        rateLimiter.acquireAsync().get(1, TimeUnit.SECONDS);
+        assertFalse("The lambda is not called once its future has been cancelled", lambdaCalled.get());
+    }
+
+    @Test
+    public void testMillisecondRateLimiterAdaptsLegacyWaits() throws InterruptedException {
+
+        RateLimiter rateLimiter = new MillisecondRateLimiter() {
+            @Override
+            protected long getWaitBeforeNextInvocation() {
+                return 100;
+            }
+        };
+
+        assertFalse("A permit is not acquired when the wait is longer than the timeout", rateLimiter.tryAcquire(1, 10, TimeUnit.MILLISECONDS));
+
+        long start = System.nanoTime();
+        assertTrue("A permit is acquired when the wait is within the timeout", rateLimiter.tryAcquire(1, 1, TimeUnit.SECONDS));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("The wait in milliseconds is applied", elapsedMillis >= 90);
+
+        assertThrows("Only one permit may be acquired at a time", IllegalArgumentException.class, () -> {
+            rateLimiter.tryAcquire(2);
+        });
+    }
+
+    @Test
+    public void testSlidingWindowLogAllowsWholeQuotaInBurst() throws InterruptedException {
+
+        RateLimiter rateLimiter = RateLimiterBuilder.newBuilder()
+                                             .withRate(10, TimeUnit.SECONDS)
+                                             .withSlidingWindowLog()
+                                             .build();
+
+        assertTrue("The whole quota may be used at once", rateLimiter.tryAcquire(10));
+        assertFalse("No more than the quota is allowed within the window", rateLimiter.tryAcquire());
+
+        long start = System.nanoTime();
+        assertTrue("The whole quota is allowed again once the window has slid along", rateLimiter.tryAcquire(10, 2, TimeUnit.SECONDS));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("The quota is not allowed again until the window has slid along", elapsedMillis >= 900);
+        assertFalse("No more than the quota is allowed within the next window", rateLimiter.tryAcquire());
+    }
+
+    @Test
+    public void testSlidingWindowLogRejectsRatesTooLargeToLog() {
+
+        assertThrows("A rate too large to keep a log for is rejected", IllegalArgumentException.class, () -> {
+            RateLimiterBuilder.newBuilder()
+                              .withRate(10_000_000, TimeUnit.SECONDS)
+                              .withSlidingWindowLog()
+                              .build();
+        });
+    }
+
+    @Test(timeout = 10_000)
+    public void testSlidingWindowCounterReservesAheadAtPerDayRates() {
+
+        for (int rate : new int[]{139, 140, 187, 188, 199, 200}) {
+            RateLimiter rateLimiter = RateLimiterBuilder.newBuilder()
+                                                 .withRate(rate, TimeUnit.DAYS)
+                                                 .withSlidingWindowCounter()
+                                                 .build();
+
+            long lastWait = 0;
+            for (int i = 0; i < 5 * rate; i++) {
+                long waitNanos = rateLimiter.reservePermits(1, Long.MAX_VALUE);
+                assertTrue("Reservations are made in order of their due time", waitNanos >= lastWait);
+                lastWait = waitNanos;
+            }
+            assertTrue("Reserving five windows' worth of permits takes at least four windows",
+                    lastWait >= TimeUnit.DAYS.toNanos(4));
+        }
+    }
+
+    @Test
+    public void testSlidingWindowCounterAllowsWholeQuotaInBurst() throws InterruptedException {
+
+        RateLimiter rateLimiter = RateLimiterBuilder.newBuilder()
+                                             .withRate(10, TimeUnit.SECONDS)
+                                             .withSlidingWindowCounter()
+                                             .build();
+
+        int executions = 0;
+        while (rateLimiter.tryAcquire()) {
+            executions++;
+        }
+        assertEquals("The whole quota may be used at once", 10, executions);
+
+        long start = System.nanoTime();
+        assertTrue("Another permit is allowed once the window has slid along", rateLimiter.tryAcquire(1, 2, TimeUnit.SECONDS));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("Another permit is not allowed until the window has slid along", elapsedMillis >= 900);
+    }
+
+    @Test
+    public void testGcraAllowsConfiguredBurst() {
+
+        RateLimiter rateLimiter = RateLimiterBuilder.newBuilder()
+                                             .withRate(10, TimeUnit.SECONDS)
+                                             .withGcra(5)
+                                             .build();
+
+        assertTrue("A burst up to the burst size is allowed at once", rateLimiter.tryAcquire(5));
+        assertFalse("No more than the burst size is allowed at once", rateLimiter.tryAcquire());
+
+        int executions = countExecutionsInOneSecond(rateLimiter);
+        assertTrue("The rate limiter should have kept executions after the burst at or below 11", executions <= 11);
+        assertTrue("The rate limiter should allowed at least 9 executions after the burst", executions >= 9);
+    }
+}
@@ -0,0 +1,111 @@
+package org.rnorth.ducttape.timeouts;
+
+import org.junit.Test;
+import org.rnorth.ducttape.TimeoutException;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.rnorth.visibleassertions.VisibleAssertions.assertEquals;
+import static org.rnorth.visibleassertions.VisibleAssertions.assertThrows;
+import static org.rnorth.visibleassertions.VisibleAssertions.assertTrue;
+
+/**
+ * Tests for AdaptiveTimeout.
+ */
+public class AdaptiveTimeoutTest {
+
+    @Test
+    public void usesMaxTimeoutUntilEnoughSamples() {
+        AdaptiveTimeout timeout = AdaptiveTimeoutBuilder.newBuilder()
+                                                        .withBounds(1, 2000, TimeUnit.MILLISECONDS)
+                                                        .build();
+
+        assertEquals("The max timeout is used before any calls have been made", 2000L, timeout.getTimeout(TimeUnit.MILLISECONDS));
+
+        String result = timeout.getWithTimeout(() -> "result");
+
+        assertEquals("A result is returned from the lambda", "result", result);
+        assertEquals("The max timeout is still used after a single call", 2000L, timeout.getTimeout(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void timeoutShrinksToFitFastCalls() {
+        AdaptiveTimeout timeout = AdaptiveTimeoutBuilder.newBuilder()
+                                                        .withBounds(50, 5000, TimeUnit.MILLISECONDS)
+                                                        .build();
+
+        for (int i = 0; i < 100; i++) {
+            timeout.doWithTimeout(() -> { });
+        }
+
+        assertEquals("The timeout shrinks to the min timeout when calls are fast", 50L, timeout.getTimeout(TimeUnit.MILLISECONDS));
+
+        assertThrows("A call much slower than usual times out", TimeoutException.class, () -> {
+            timeout.doWithTimeout(() -> {
+                try {
+                    Thread.sleep(2000);
+                } catch (InterruptedException ignored) { }
+            });
+        });
+    }
+
+    @Test
+    public void timeoutGrowsWhenLatencyStepsUp() {
+        AdaptiveTimeout timeout = AdaptiveTimeoutBuilder.newBuilder()
+                                                        .withBounds(50, 5000, TimeUnit.MILLISECONDS)
+                                                        .build();
+
+        for (int i = 0; i < 100; i++) {
+            timeout.doWithTimeout(() -> { });
+        }
+        assertEquals("The timeout shrinks to the min timeout while calls are fast", 50L, timeout.getTimeout(TimeUnit.MILLISECONDS));
+
+        boolean succeeded = false;
+        for (int i = 0; i < 100 && !succeeded; i++) {
+            try {
+                timeout.doWithTimeout(() -> {
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException ignored) { }
+                });
+                succeeded = true;
+            } catch (TimeoutException ignored) { }
+        }
+
+        assertTrue("Calls succeed again once the timeout has grown to fit the slower latency", succeeded);
+        assertTrue("The timeout has grown to at least the new latency", timeout.getTimeout(TimeUnit.MILLISECONDS) >= 100);
+    }
+
+    @Test
+    public void timeoutTracksPercentileOfLatency() {
+        AdaptiveTimeout timeout = AdaptiveTimeoutBuilder.newBuilder()
+                                                        .withPercentile(50)
+                                                        .withMultiplier(4)
+                                                        .withBounds(1, 5000, TimeUnit.MILLISECONDS)
+                                                        .build();
+
+        for (int i = 0; i < 32; i++) {
+            timeout.doWithTimeout(() -> {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException ignored) { }
+            });
+        }
+
+        long timeoutMillis = timeout.getTimeout(TimeUnit.MILLISECONDS);
+        assertTrue("The timeout is a multiple of the median latency", timeoutMillis >= 30 && timeoutMillis < 1000);
+    }
+
+    @Test
+    public void rejectsInvalidSettings() {
+        assertThrows("Bounds are required", IllegalArgumentException.class, () -> {
+            AdaptiveTimeoutBuilder.newBuilder().build();
+        });
+        assertThrows("The max timeout may not be below the min timeout", IllegalArgumentException.class, () -> {
+            AdaptiveTimeoutBuilder.newBuilder().withBounds(10, 5, TimeUnit.SECONDS);
+        });
+        assertThrows("The multiplier may not be below 1", IllegalArgumentException.class, () -> {
+            AdaptiveTimeoutBuilder.newBuilder().withMultiplier(0.5);
+        });
+    }
+}
@@ -0,0 +1,190 @@
+package org.rnorth.ducttape.timeouts;
+
+import org.junit.Test;
+import org.rnorth.ducttape.TimeoutException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.rnorth.visibleassertions.VisibleAssertions.assertEquals;
+import static org.rnorth.visibleassertions.VisibleAssertions.assertFalse;
+import static org.rnorth.visibleassertions.VisibleAssertions.assertThrows;
+import static org.rnorth.visibleassertions.VisibleAssertions.assertTrue;
+
+/**
+ * Tests for TimeLimiter.
+ */
+public class TimeLimiterTest {
+
+    @Test
+    public void boundedPoolReturnsResult() {
+        TimeLimiter timeLimiter = TimeLimiterBuilder.newBuilder()
+                                                    .withBoundedPool(2, 2)
+                                                    .build();
+
+        String result = timeLimiter.getWithTimeout(1, TimeUnit.SECONDS, () -> "result");
+
+        assertEquals("A result is returned from the lambda", "result", result);
+        assertEquals("Nothing is left running", 0, timeLimiter.getActiveCount());
+    }
+
+    @Test
+    public void boundedPoolRejectsWhenSaturated() throws InterruptedException {
+        TimeLimiter timeLimiter = TimeLimiterBuilder.newBuilder()
+                                                    .withBoundedPool(1, 1)
+                                                    .build();
+
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable hang = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException ignored) { }
+        };
+
+        // occupy the only thread, then the only queue slot
+        assertThrows("The first call times out", TimeoutException.class, () -> {
+            timeLimiter.doWithTimeout(50, TimeUnit.MILLISECONDS, hang);
+        });
+        assertThrows("The second call times out waiting in the queue", TimeoutException.class, () -> {
+            timeLimiter.doWithTimeout(50, TimeUnit.MILLISECONDS, hang);
+        });
+
+        assertEquals("One lambda is running", 1, timeLimiter.getActiveCount());
+        assertEquals("One lambda is queued", 1, timeLimiter.getQueuedCount());
+
+        long start = System.nanoTime();
+        assertThrows("A call made while saturated is rejected", RejectedExecutionException.class, () -> {
+            timeLimiter.doWithTimeout(1, TimeUnit.SECONDS, hang);
+        });
+        assertEquals("The rejection is immediate", 0L, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+        assertEquals("The rejection is counted", 1L, timeLimiter.getRejectedCount());
+
+        release.countDown();
+        Thread.sleep(100L);
+        assertEquals("All lambdas have finished running", 0, timeLimiter.getActiveCount());
+        assertEquals("No lambdas are queued", 0, timeLimiter.getQueuedCount());
+    }
+
+    @Test
+    public void customExecutorIsUsed() {
+        TimeLimiter timeLimiter = TimeLimiterBuilder.newBuilder()
+                                                    .withExecutor(Executors.newSingleThreadExecutor(r -> new Thread(r, "custom")))
+                                                    .build();
+
+        String threadName = timeLimiter.getWithTimeout(1, TimeUnit.SECONDS, () -> Thread.currentThread().getName());
+
+        assertEquals("The lambda runs on the provided executor", "custom", threadName);
+    }
+
+    @Test
+    public void anExecutorMustBeSet() {
+        assertThrows("A time limiter cannot be built without an executor", IllegalArgumentException.class, () -> {
+            TimeLimiterBuilder.newBuilder().build();
+        });
+    }
+
+    @Test
+    public void overrunningLambdasAreCountedWithoutCancellation() throws InterruptedException {
+        TimeLimiter timeLimiter = TimeLimiterBuilder.newBuilder()
+                                                    .withBoundedPool(1, 0)
+                                                    .build();
+
+        CountDownLatch release = new CountDownLatch(1);
+        assertThrows("The call times out", TimeoutException.class, () -> {
+            timeLimiter.doWithTimeout(50, TimeUnit.MILLISECONDS, () -> {
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) { }
+            });
+        });
+
+        assertEquals("The lambda is counted as overrunning", 1, timeLimiter.getOverrunCount());
+        assertEquals("The timeout is counted", 1L, timeLimiter.getTimedOutCount());
+
+        release.countDown();
+        Thread.sleep(100L);
+        assertEquals("The lambda is no longer overrunning once it finishes", 0, timeLimiter.getOverrunCount());
+    }
+
+    @Test
+    public void interruptPolicyStopsTimedOutLambda() throws InterruptedException {
+        AtomicBoolean cleanedUp = new AtomicBoolean();
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        TimeLimiter timeLimiter = TimeLimiterBuilder.newBuilder()
+                                                    .withBoundedPool(1, 0)
+                                                    .withCancellationPolicy(CancellationPolicy.INTERRUPT)
+                                                    .build();
+
+        assertThrows("The call times out", TimeoutException.class, () -> {
+            timeLimiter.doWithTimeout(50, TimeUnit.MILLISECONDS, () -> {
+                try {
+                    Thread.sleep(5000L);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            }, () -> cleanedUp.set(true));
+        });
+
+        assertTrue("The lambda is interrupted", interrupted.await(1, TimeUnit.SECONDS));
+        assertTrue("The cleanup action is run", cleanedUp.get());
+
+        Thread.sleep(50L);
+        assertEquals("Nothing is left running", 0, timeLimiter.getActiveCount());
+        assertEquals("Nothing is left overrunning", 0, timeLimiter.getOverrunCount());
+
+        AtomicBoolean otherCleanedUp = new AtomicBoolean();
+        timeLimiter.doWithTimeout(1, TimeUnit.SECONDS, () -> { }, () -> otherCleanedUp.set(true));
+        assertFalse("The cleanup action is not run for a call which does not time out", otherCleanedUp.get());
+    }
+
+    @Test
+    public void cancelPolicyPreventsQueuedLambdaFromRunning() throws InterruptedException {
+        AtomicBoolean queuedLambdaRan = new AtomicBoolean();
+        CountDownLatch release = new CountDownLatch(1);
+
+        TimeLimiter timeLimiter = TimeLimiterBuilder.newBuilder()
+                                                    .withBoundedPool(1, 1)
+                                                    .withCancellationPolicy(CancellationPolicy.CANCEL)
+                                                    .build();
+
+        assertThrows("The first call times out", TimeoutException.class, () -> {
+            timeLimiter.doWithTimeout(50, TimeUnit.MILLISECONDS, () -> {
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) { }
+            });
+        });
+        assertThrows("The queued call times out", TimeoutException.class, () -> {
+            timeLimiter.doWithTimeout(50, TimeUnit.MILLISECONDS, () -> queuedLambdaRan.set(true));
+        });
+        assertEquals("The cancelled lambda is no longer counted as queued", 0, timeLimiter.getQueuedCount());
+
+        release.countDown();
+        Thread.sleep(100L);
+        assertFalse("The cancelled lambda never runs", queuedLambdaRan.get());
+    }
+
+    @Test
+    public void virtualThreadsAreUsedWhenSupported() throws Exception {
+        if (!VirtualThreads.isSupported()) {
+            assertThrows("Virtual threads cannot be selected on a JVM that does not support them", IllegalArgumentException.class, () -> {
+                TimeLimiterBuilder.newBuilder().withVirtualThreads();
+            });
+            return;
+        }
+
+        TimeLimiter timeLimiter = TimeLimiterBuilder.newBuilder()
+                                                    .withVirtualThreads()
+                                                    .build();
+
+        Object isVirtual = timeLimiter.getWithTimeout(1, TimeUnit.SECONDS, () -> {
+            return Thread.class.getMethod("isVirtual").invoke(Thread.currentThread());
+        });
+
+        assertEquals("The lambda runs on a virtual thread", Boolean.TRUE, isVirtual);
+    }
+}
@@ -3,10 +3,20 @@ package org.rnorth.ducttape.timeouts;
 import org.junit.Test;
 import org.rnorth.ducttape.TimeoutException;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.rnorth.visibleassertions.VisibleAssertions.assertEquals;
+import static org.rnorth.visibleassertions.VisibleAssertions.assertFalse;
 import static org.rnorth.visibleassertions.VisibleAssertions.assertThrows;
+import static org.rnorth.visibleassertions.VisibleAssertions.assertTrue;
+import static org.rnorth.visibleassertions.VisibleAssertions.fail;
 
 /**
  * Tests for Timeouts class.
@@ -56,4 +66,171 @@ public class TimeoutsTest {
 
         assertEquals("A result is returned from the lambda", "result", result);
     }
+
+    @Test
+    public void newTimeoutRunsTaskAfterDelay() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        TimeoutHandle handle = Timeouts.newTimeout(50, TimeUnit.MILLISECONDS, latch::countDown);
+
+        assertTrue("The timeout task is run", latch.await(1, TimeUnit.SECONDS));
+        assertTrue("The timeout task is not run before the delay has elapsed", System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertTrue("The handle reports that the timeout expired", handle.isExpired());
+        assertFalse("An expired timeout cannot be cancelled", handle.cancel());
+    }
+
+    @Test
+    public void cancelledTimeoutDoesNotRunTask() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+
+        TimeoutHandle handle = Timeouts.newTimeout(50, TimeUnit.MILLISECONDS, runs::incrementAndGet);
+
+        assertTrue("A pending timeout can be cancelled", handle.cancel());
+        Thread.sleep(150L);
+        assertEquals("A cancelled timeout task is not run", 0, runs.get());
+        assertTrue("The handle reports that the timeout was cancelled", handle.isCancelled());
+    }
+
+    @Test
+    public void errorInTimeoutTaskDoesNotStopTimer() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+
+        Timeouts.newTimeout(10, TimeUnit.MILLISECONDS, () -> {
+            throw new AssertionError("Task failed");
+        });
+        Timeouts.newTimeout(50, TimeUnit.MILLISECONDS, latch::countDown);
+
+        assertTrue("Later timeout tasks are still run", latch.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void manyTimeoutsCanBeTrackedAtOnce() throws InterruptedException {
+        int count = 10_000;
+        CountDownLatch latch = new CountDownLatch(count / 2);
+        AtomicInteger runs = new AtomicInteger();
+
+        List<TimeoutHandle> handles = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            handles.add(Timeouts.newTimeout(500 + i % 100, TimeUnit.MILLISECONDS, () -> {
+                runs.incrementAndGet();
+                latch.countDown();
+            }));
+        }
+        for (int i = 0; i < count; i += 2) {
+            handles.get(i).cancel();
+        }
+
+        assertTrue("All remaining timeouts expire", latch.await(2, TimeUnit.SECONDS));
+        Thread.sleep(150L);
+        assertEquals("Only timeouts which were not cancelled are run", count / 2, runs.get());
+    }
+
+    @Test
+    public void callingThreadTimeoutKeepsCallersOwnInterrupt() {
+        Thread.currentThread().interrupt();
+
+        assertThrows("It throws a TimeoutException if execution time is exceeded", TimeoutException.class, () -> {
+            Timeouts.doWithTimeoutOnCallingThread(50, TimeUnit.MILLISECONDS, () -> {
+                long stopAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(150);
+                while (System.nanoTime() - stopAt < 0) {
+                    // Ignore interrupts, like code which does not check for them
+                }
+            });
+        });
+        assertTrue("An interrupt the caller already had is left in place", Thread.interrupted());
+    }
+
+    @Test
+    public void callingThreadTimeoutThrowsException() {
+        assertThrows("It throws a TimeoutException if execution time is exceeded", TimeoutException.class, () -> {
+            Timeouts.doWithTimeoutOnCallingThread(100, TimeUnit.MILLISECONDS, () -> {
+                try {
+                    Thread.sleep(2000L);
+                } catch (InterruptedException ignored) { }
+            });
+        });
+        assertFalse("The interrupt used to stop the lambda does not leak to the caller", Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    public void callingThreadWithinTimeIsOkAndCanReturnResult() {
+        Thread caller = Thread.currentThread();
+
+        Thread executingThread = Timeouts.getWithTimeoutOnCallingThread(1, TimeUnit.SECONDS, Thread::currentThread);
+
+        assertEquals("The lambda is run on the calling thread", caller, executingThread);
+    }
+
+    @Test
+    public void callingThreadTimeoutIsNotTriggeredAfterCompletion() throws InterruptedException {
+        Timeouts.doWithTimeoutOnCallingThread(50, TimeUnit.MILLISECONDS, () -> { });
+
+        Thread.sleep(100L);
+        assertFalse("The calling thread is not interrupted after the lambda has completed", Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    public void asyncResultWithinTimeIsPassedThrough() throws Exception {
+        CompletableFuture<String> source = new CompletableFuture<>();
+
+        CompletableFuture<String> result = Timeouts.withTimeout(1, TimeUnit.SECONDS, source);
+        source.complete("result");
+
+        assertEquals("The result of the source stage is passed through", "result", result.get());
+    }
+
+    @Test
+    public void asyncResultCompletesExceptionallyOnTimeout() throws Exception {
+        CompletableFuture<String> result = Timeouts.getWithTimeoutAsync(50, TimeUnit.MILLISECONDS, CompletableFuture::new);
+
+        try {
+            result.get(1, TimeUnit.SECONDS);
+            fail("The result should complete exceptionally when the timeout is exceeded");
+        } catch (ExecutionException e) {
+            assertEquals("The result completes with a TimeoutException", TimeoutException.class, e.getCause().getClass());
+        }
+    }
+
+    @Test
+    public void asyncFailureIsPassedThrough() throws Exception {
+        CompletableFuture<String> result = Timeouts.getWithTimeoutAsync(1, TimeUnit.SECONDS, () -> {
+            CompletableFuture<String> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalStateException("failure"));
+            return failed;
+        });
+
+        try {
+            result.get(1, TimeUnit.SECONDS);
+            fail("The result should complete exceptionally when the source stage fails");
+        } catch (ExecutionException e) {
+            assertEquals("The failure of the source stage is passed through", IllegalStateException.class, e.getCause().getClass());
+        }
+    }
+
+    @Test
+    public void testWithTimeoutIsDeliveredWhenCommonPoolIsSaturated() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        int parallelism = ForkJoinPool.commonPool().getParallelism();
+        for (int i = 0; i < parallelism; i++) {
+            ForkJoinPool.commonPool().execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) { }
+            });
+        }
+
+        try {
+            CompletableFuture<String> result = Timeouts.withTimeout(100, TimeUnit.MILLISECONDS, new CompletableFuture<String>());
+
+            try {
+                result.get(2, TimeUnit.SECONDS);
+                fail("The future should complete exceptionally");
+            } catch (ExecutionException e) {
+                assertEquals("The timeout is delivered even though the common pool is busy", TimeoutException.class, e.getCause().getClass());
+            }
+        } finally {
+            release.countDown();
+        }
+    }
 }
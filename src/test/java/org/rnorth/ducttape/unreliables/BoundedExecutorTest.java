@@ -0,0 +1,88 @@
+package org.rnorth.ducttape.unreliables;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.rnorth.visibleassertions.VisibleAssertions.assertEquals;
+import static org.rnorth.visibleassertions.VisibleAssertions.assertThrows;
+import static org.rnorth.visibleassertions.VisibleAssertions.assertTrue;
+
+/**
+ * Tests for BoundedExecutor.
+ */
+public class BoundedExecutorTest {
+
+    @Test
+    public void limitsConcurrentTasks() throws Exception {
+        ExecutorService delegate = Executors.newCachedThreadPool();
+        BoundedExecutor executor = new BoundedExecutor(delegate, 3);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch finished = new CountDownLatch(50);
+
+        for (int i = 0; i < 50; i++) {
+            executor.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(5L);
+                } catch (InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                finished.countDown();
+            });
+        }
+
+        assertTrue("Every task is run", finished.await(5, TimeUnit.SECONDS));
+        assertEquals("No more than the maximum number of tasks run at once", 3, maxRunning.get());
+        delegate.shutdown();
+    }
+
+    @Test
+    public void keepsTasksRejectedByDelegate() throws Exception {
+        AtomicBoolean reject = new AtomicBoolean();
+        AtomicInteger workerFailures = new AtomicInteger();
+        Executor delegate = task -> {
+            if (reject.get()) {
+                throw new RejectedExecutionException();
+            }
+            Thread thread = new Thread(task);
+            thread.setUncaughtExceptionHandler((t, e) -> workerFailures.incrementAndGet());
+            thread.start();
+        };
+        BoundedExecutor executor = new BoundedExecutor(delegate, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(2);
+
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute(finished::countDown);
+
+        reject.set(true);
+        release.countDown();
+        Thread.sleep(100L);
+
+        assertThrows("A task which cannot be handed over is rejected to its submitter", RejectedExecutionException.class, () -> {
+            executor.execute(() -> { });
+        });
+
+        reject.set(false);
+        executor.execute(finished::countDown);
+
+        assertTrue("A queued task which was rejected by the delegate is run later", finished.await(5, TimeUnit.SECONDS));
+        assertEquals("Rejection is not thrown from a worker thread", 0, workerFailures.get());
+    }
+}
@@ -0,0 +1,96 @@
+package org.rnorth.ducttape.unreliables;
+
+import org.junit.Test;
+import org.rnorth.ducttape.RetryBudgetExhaustedException;
+import org.rnorth.ducttape.TimeoutException;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.rnorth.visibleassertions.VisibleAssertions.assertEquals;
+import static org.rnorth.visibleassertions.VisibleAssertions.assertThrows;
+import static org.rnorth.visibleassertions.VisibleAssertions.assertTrue;
+
+/**
+ * Tests for RetryBudget.
+ */
+public class RetryBudgetTest {
+
+    @Test
+    public void budgetRefusesRetriesOnceSpent() {
+        RetryBudget budget = new RetryBudget(0.5, 2);
+
+        assertTrue("The first retry is allowed", budget.tryRetry());
+        assertTrue("The second retry is allowed", budget.tryRetry());
+        assertTrue("The third retry is refused", !budget.tryRetry());
+
+        assertEquals("Allowed retries are counted", 2L, budget.getRetriesAllowed());
+        assertEquals("Refused retries are counted", 1L, budget.getRetriesDenied());
+    }
+
+    @Test
+    public void firstAttemptSuccessesRefillBudget() {
+        RetryBudget budget = new RetryBudget(0.5, 2);
+        budget.tryRetry();
+        budget.tryRetry();
+
+        budget.recordFirstAttemptSuccess();
+        assertEquals("Half a token is not enough for a retry", 0L, budget.getAvailableRetries());
+
+        budget.recordFirstAttemptSuccess();
+        assertEquals("Two successes earn one retry", 1L, budget.getAvailableRetries());
+
+        for (int i = 0; i < 10; i++) {
+            budget.recordFirstAttemptSuccess();
+        }
+        assertEquals("The budget does not grow beyond its maximum", 2L, budget.getAvailableRetries());
+    }
+
+    @Test
+    public void sharedBudgetFailsRetriesFast() {
+        RetryBudget budget = new RetryBudget(0.1, 3);
+        RetryPolicy retryPolicy = RetryPolicyBuilder.newBuilder()
+                                                    .withRetryBudget(budget)
+                                                    .build();
+        final int[] attempt = {0};
+
+        assertThrows("Retries fail fast once the shared budget is spent", RetryBudgetExhaustedException.class, () -> {
+            Unreliables.retryUntilSuccess(100, retryPolicy, () -> {
+                attempt[0]++;
+                throw new IllegalStateException("This will always fail");
+            });
+        });
+        assertEquals("Only the budgeted retries were made", 4, attempt[0]);
+
+        long start = System.nanoTime();
+        assertThrows("Time-bounded retries also fail fast", RetryBudgetExhaustedException.class, () -> {
+            Unreliables.retryUntilSuccess(5, TimeUnit.SECONDS, retryPolicy, () -> {
+                throw new IllegalStateException("This will always fail");
+            });
+        });
+        assertTrue("The failure is reported without waiting for the timeout", System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void budgetIsNotSpentOnceTheTimeoutHasExpired() {
+        RetryBudget budget = new RetryBudget(0.1, 3);
+        RetryPolicy retryPolicy = RetryPolicyBuilder.newBuilder()
+                                                    .withRetryBudget(budget)
+                                                    .build();
+
+        assertThrows("The call times out", TimeoutException.class, () -> {
+            Unreliables.retryUntilSuccessOnCallingThread(100, TimeUnit.MILLISECONDS, retryPolicy, () -> {
+                Thread.sleep(200);
+                throw new IllegalStateException("This will always fail");
+            });
+        });
+        assertEquals("No retry is withdrawn for an attempt which will never be made", 0L, budget.getRetriesAllowed());
+
+        assertThrows("The pooled call times out", TimeoutException.class, () -> {
+            Unreliables.retryUntilSuccess(100, TimeUnit.MILLISECONDS, retryPolicy, () -> {
+                Thread.sleep(200);
+                throw new IllegalStateException("This will always fail");
+            });
+        });
+        assertEquals("No retry is withdrawn by the pooled loop either", 0L, budget.getRetriesAllowed());
+    }
+}
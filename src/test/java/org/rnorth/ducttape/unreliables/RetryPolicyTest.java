@@ -0,0 +1,122 @@
+package org.rnorth.ducttape.unreliables;
+
+import org.junit.Test;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.rnorth.visibleassertions.VisibleAssertions.assertEquals;
+import static org.rnorth.visibleassertions.VisibleAssertions.assertFalse;
+import static org.rnorth.visibleassertions.VisibleAssertions.assertThrows;
+import static org.rnorth.visibleassertions.VisibleAssertions.assertTrue;
+
+/**
+ * Tests for RetryPolicy backoff calculations and exception classification.
+ */
+public class RetryPolicyTest {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void defaultPolicyDoesNotBackOff() {
+        RetryPolicy policy = RetryPolicyBuilder.newBuilder().build();
+
+        assertEquals("There is no delay by default", 0L, policy.nextDelayNanos(1, 0));
+    }
+
+    @Test
+    public void fixedBackoffIsConstant() {
+        RetryPolicy policy = RetryPolicyBuilder.newBuilder()
+                                               .withFixedBackoff(10, TimeUnit.MILLISECONDS)
+                                               .build();
+
+        assertEquals("The first delay is the fixed delay", 10 * MILLI, policy.nextDelayNanos(1, 0));
+        assertEquals("Later delays are the fixed delay", 10 * MILLI, policy.nextDelayNanos(5, 10 * MILLI));
+    }
+
+    @Test
+    public void exponentialBackoffDoublesUpToCap() {
+        RetryPolicy policy = RetryPolicyBuilder.newBuilder()
+                                               .withExponentialBackoff(10, TimeUnit.MILLISECONDS)
+                                               .withMaxBackoff(50, TimeUnit.MILLISECONDS)
+                                               .build();
+
+        assertEquals("The first delay is the initial delay", 10 * MILLI, policy.nextDelayNanos(1, 0));
+        assertEquals("The second delay is doubled", 20 * MILLI, policy.nextDelayNanos(2, 10 * MILLI));
+        assertEquals("The third delay is doubled again", 40 * MILLI, policy.nextDelayNanos(3, 20 * MILLI));
+        assertEquals("Delays are capped", 50 * MILLI, policy.nextDelayNanos(4, 40 * MILLI));
+        assertEquals("Delays do not overflow after many attempts", 50 * MILLI, policy.nextDelayNanos(1000, 50 * MILLI));
+    }
+
+    @Test
+    public void decorrelatedJitterStaysWithinBounds() {
+        RetryPolicy policy = RetryPolicyBuilder.newBuilder()
+                                               .withDecorrelatedJitterBackoff(10, TimeUnit.MILLISECONDS)
+                                               .withMaxBackoff(1, TimeUnit.SECONDS)
+                                               .build();
+
+        long delay = 0;
+        for (int attempt = 1; attempt < 100; attempt++) {
+            long previous = delay;
+            delay = policy.nextDelayNanos(attempt, previous);
+            assertTrue("The delay is at least the base delay", delay >= 10 * MILLI);
+            assertTrue("The delay is at most three times the previous delay", delay <= Math.max(previous, 10 * MILLI) * 3);
+            assertTrue("The delay is capped", delay <= 1000 * MILLI);
+        }
+    }
+
+    @Test
+    public void capMustNotBeLessThanBaseDelay() {
+        assertThrows("A cap below the base delay is rejected", IllegalArgumentException.class, () -> {
+            RetryPolicyBuilder.newBuilder()
+                              .withFixedBackoff(1, TimeUnit.SECONDS)
+                              .withMaxBackoff(1, TimeUnit.MILLISECONDS)
+                              .build();
+        });
+    }
+
+    @Test
+    public void everyExceptionIsRetryableByDefault() {
+        RetryPolicy policy = RetryPolicyBuilder.newBuilder().build();
+
+        assertTrue("Checked exceptions are retried by default", policy.isRetryable(new IOException()));
+        assertTrue("Unchecked exceptions are retried by default", policy.isRetryable(new IllegalArgumentException()));
+        assertFalse("Results are never retried by default", policy.isRetryableResult(null));
+    }
+
+    @Test
+    public void onlyListedExceptionsAreRetried() {
+        RetryPolicy policy = RetryPolicyBuilder.newBuilder()
+                                               .retryOn(IOException.class)
+                                               .retryIf(e -> e.getMessage() != null && e.getMessage().contains("busy"))
+                                               .build();
+
+        assertTrue("Listed exception types are retried", policy.isRetryable(new IOException()));
+        assertTrue("Subclasses of listed exception types are retried", policy.isRetryable(new FileNotFoundException()));
+        assertTrue("Exceptions matching a predicate are retried", policy.isRetryable(new IllegalStateException("server busy")));
+        assertFalse("Other exceptions are not retried", policy.isRetryable(new IllegalStateException("invalid")));
+        assertTrue("Polling for a condition is always retried", policy.isRetryable(NotReadyException.INSTANCE));
+    }
+
+    @Test
+    public void abortedExceptionsTakePrecedence() {
+        RetryPolicy policy = RetryPolicyBuilder.newBuilder()
+                                               .retryOn(IOException.class)
+                                               .abortOn(FileNotFoundException.class)
+                                               .build();
+
+        assertTrue("Listed exception types are retried", policy.isRetryable(new IOException()));
+        assertFalse("Aborted exception types are not retried, even if also listed as retryable", policy.isRetryable(new FileNotFoundException()));
+    }
+
+    @Test
+    public void resultsMatchingPredicateAreRetried() {
+        RetryPolicy policy = RetryPolicyBuilder.newBuilder()
+                                               .retryIfResult(result -> result == null)
+                                               .build();
+
+        assertTrue("Results matching the predicate are retried", policy.isRetryableResult(null));
+        assertFalse("Other results are used", policy.isRetryableResult("OK"));
+    }
+}
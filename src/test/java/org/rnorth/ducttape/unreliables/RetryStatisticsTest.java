@@ -0,0 +1,121 @@
+package org.rnorth.ducttape.unreliables;
+
+import org.junit.Test;
+import org.rnorth.ducttape.RetryCountExceededException;
+import org.rnorth.ducttape.TimeoutException;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.rnorth.visibleassertions.VisibleAssertions.assertEquals;
+import static org.rnorth.visibleassertions.VisibleAssertions.assertThrows;
+import static org.rnorth.visibleassertions.VisibleAssertions.assertTrue;
+import static org.rnorth.visibleassertions.VisibleAssertions.fail;
+
+/**
+ * Tests for RetryStatistics.
+ */
+public class RetryStatisticsTest {
+
+    @Test
+    public void attemptsAndCallsAreCounted() {
+        RetryStatistics statistics = new RetryStatistics();
+        RetryPolicy retryPolicy = RetryPolicyBuilder.newBuilder()
+                                                    .withListener(statistics)
+                                                    .build();
+
+        for (int i = 0; i < 10; i++) {
+            AtomicInteger attempt = new AtomicInteger();
+            Unreliables.retryUntilSuccess(5, retryPolicy, () -> {
+                if (attempt.incrementAndGet() < 3) {
+                    throw new IllegalStateException();
+                }
+                return null;
+            });
+        }
+        assertThrows("A call which never succeeds gives up",
+                RetryCountExceededException.class,
+                () -> {
+                    Unreliables.retryUntilSuccess(2, retryPolicy, () -> {
+                        throw new IllegalStateException();
+                    });
+                });
+
+        assertEquals("Every attempt is counted", 32L, statistics.getAttemptCount());
+        assertEquals("Failed attempts are counted", 22L, statistics.getFailedAttemptCount());
+        assertEquals("Successful calls are counted", 10L, statistics.getSuccessfulCallCount());
+        assertEquals("Calls which gave up are counted", 1L, statistics.getFailedCallCount());
+        assertEquals("The typical call takes three attempts", 3L, statistics.getAttemptsPerCallAtPercentile(50));
+    }
+
+    @Test
+    public void asyncAttemptFinishingAfterTimeoutIsNotCounted() throws Exception {
+        RetryStatistics statistics = new RetryStatistics();
+        RetryPolicy retryPolicy = RetryPolicyBuilder.newBuilder()
+                                                    .withListener(statistics)
+                                                    .build();
+
+        CompletableFuture<String> future = Unreliables.retryUntilSuccessAsync(100, TimeUnit.MILLISECONDS, retryPolicy, ForkJoinPool.commonPool(), () -> {
+            Thread.sleep(400L);
+            return "late";
+        });
+        try {
+            future.get(1, TimeUnit.SECONDS);
+            fail("The call should time out");
+        } catch (ExecutionException e) {
+            assertTrue("The call times out", e.getCause() instanceof TimeoutException);
+        }
+        Thread.sleep(500L);
+
+        assertEquals("The late attempt does not count as a successful call", 0L, statistics.getSuccessfulCallCount());
+        assertEquals("The call is only counted once, as having given up", 1L, statistics.getFailedCallCount());
+    }
+
+    @Test
+    public void batchRoundFinishingAfterTimeoutIsNotCounted() throws Exception {
+        RetryStatistics statistics = new RetryStatistics();
+        RetryPolicy retryPolicy = RetryPolicyBuilder.newBuilder()
+                                                    .withListener(statistics)
+                                                    .build();
+
+        assertThrows("The call times out", TimeoutException.class, () -> {
+            Unreliables.retryUntilAllSucceed(100, TimeUnit.MILLISECONDS, retryPolicy, Integer.MAX_VALUE, Arrays.asList("a", "b"), items -> {
+                Thread.sleep(400L);
+                Map<String, Integer> results = new HashMap<>();
+                items.forEach(item -> results.put(item, item.length()));
+                return results;
+            });
+        });
+        Thread.sleep(500L);
+
+        assertEquals("The late round does not count as a successful call", 0L, statistics.getSuccessfulCallCount());
+        assertEquals("The call is only counted once, as having given up", 1L, statistics.getFailedCallCount());
+    }
+
+    @Test
+    public void latenciesAreRecorded() {
+        RetryStatistics statistics = new RetryStatistics();
+        RetryPolicy retryPolicy = RetryPolicyBuilder.newBuilder()
+                                                    .withFixedBackoff(20, TimeUnit.MILLISECONDS)
+                                                    .withListener(statistics)
+                                                    .build();
+        AtomicInteger attempt = new AtomicInteger();
+
+        Unreliables.retryUntilSuccess(5, retryPolicy, () -> {
+            Thread.sleep(10L);
+            if (attempt.incrementAndGet() < 2) {
+                throw new IllegalStateException();
+            }
+            return null;
+        });
+
+        assertTrue("Attempt latency is recorded", statistics.getAttemptLatencyAtPercentile(50, TimeUnit.MILLISECONDS) >= 10L);
+        assertTrue("Call latency includes every attempt and the backoff", statistics.getCallLatencyAtPercentile(50, TimeUnit.MILLISECONDS) >= 40L);
+    }
+}
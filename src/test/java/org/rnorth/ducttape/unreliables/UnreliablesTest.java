@@ -1,15 +1,33 @@
 package org.rnorth.ducttape.unreliables;
 
 import org.junit.Test;
+import org.rnorth.ducttape.BatchIncompleteException;
+import org.rnorth.ducttape.RetryAbortedException;
+import org.rnorth.ducttape.RetryBudgetExhaustedException;
 import org.rnorth.ducttape.RetryCountExceededException;
 import org.rnorth.ducttape.TimeoutException;
+import org.rnorth.ducttape.timeouts.TimeLimiter;
+import org.rnorth.ducttape.timeouts.TimeLimiterBuilder;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.rnorth.visibleassertions.VisibleAssertions.assertEquals;
 import static org.rnorth.visibleassertions.VisibleAssertions.assertFalse;
 import static org.rnorth.visibleassertions.VisibleAssertions.assertThrows;
+import static org.rnorth.visibleassertions.VisibleAssertions.assertTrue;
 import static org.rnorth.visibleassertions.VisibleAssertions.fail;
 
 /**
@@ -201,4 +219,744 @@ public class UnreliablesTest {
                     Unreliables.retryUntilTrue(3, () -> false);
         });
     }
+
+    @Test
+    public void testRetryUntilTrueDoesNotCaptureStackTracesWhileWaiting() throws Exception {
+        try {
+            Unreliables.retryUntilTrue(3, () -> false);
+            fail("When retrying until true, a call that never returns true should throw a retry failure exception");
+        } catch (RetryCountExceededException e) {
+            assertEquals("The cause explains that the condition was not ready", "Not ready yet", e.getCause().getMessage());
+            assertEquals("No stack trace is captured for false results", 0, e.getCause().getStackTrace().length);
+        }
+    }
+
+    @Test
+    public void testRetryUntilSuccessUsesProvidedTimeLimiter() throws Exception {
+        TimeLimiter timeLimiter = TimeLimiterBuilder.newBuilder()
+                                                    .withExecutor(Executors.newSingleThreadExecutor(r -> new Thread(r, "retry-worker")))
+                                                    .build();
+        final int[] attempt = {0};
+
+        String threadName = Unreliables.retryUntilSuccess(500, TimeUnit.MILLISECONDS, timeLimiter, () -> {
+            if (attempt[0]++ < 2) {
+                throw new IllegalStateException("This will fail sometimes");
+            }
+            return Thread.currentThread().getName();
+        });
+
+        assertEquals("The retries ran on the time limiter's executor", "retry-worker", threadName);
+    }
+
+    @Test
+    public void testRetryUntilSuccessBacksOffBetweenAttempts() throws Exception {
+        RetryPolicy retryPolicy = RetryPolicyBuilder.newBuilder()
+                                                    .withFixedBackoff(50, TimeUnit.MILLISECONDS)
+                                                    .build();
+        final int[] attempt = {0};
+
+        try {
+            Unreliables.retryUntilSuccess(500, TimeUnit.MILLISECONDS, retryPolicy, () -> {
+                attempt[0]++;
+                throw new IllegalStateException("This will always fail");
+            });
+            fail("When retrying until success, a call that always fails should throw a timeout exception");
+        } catch (TimeoutException e) {
+            // ok
+            assertTrue("Attempts are spaced out by the backoff delay", attempt[0] <= 11);
+            assertTrue("Attempts continue until the timeout", attempt[0] >= 5);
+        }
+    }
+
+    @Test
+    public void testRetryUntilTrueBacksOffBetweenCountedAttempts() throws Exception {
+        RetryPolicy retryPolicy = RetryPolicyBuilder.newBuilder()
+                                                    .withExponentialBackoff(20, TimeUnit.MILLISECONDS)
+                                                    .build();
+        long start = System.currentTimeMillis();
+
+        assertThrows("When retrying until true, a call that always returns false should throw a retry failure exception",
+                RetryCountExceededException.class,
+                () -> {
+                    Unreliables.retryUntilTrue(3, retryPolicy, () -> false);
+        });
+
+        assertTrue("Backoff delays of 20ms and 40ms were applied between the three attempts", System.currentTimeMillis() - start >= 60);
+    }
+
+    @Test
+    public void testRetryUntilSuccessAsyncCompletesWithResult() throws Exception {
+        final int[] attempt = {0};
+
+        CompletableFuture<String> result = Unreliables.retryUntilSuccessAsync(500, TimeUnit.MILLISECONDS, () -> {
+            if (attempt[0]++ < 2) {
+                throw new IllegalStateException("This will fail sometimes");
+            }
+            return "OK";
+        });
+
+        assertEquals("A result can be returned using retryUntilSuccessAsync", "OK", result.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRetryUntilSuccessAsyncTimesOutWithLastException() throws Exception {
+        RetryPolicy retryPolicy = RetryPolicyBuilder.newBuilder()
+                                                    .withFixedBackoff(20, TimeUnit.MILLISECONDS)
+                                                    .build();
+
+        CompletableFuture<String> result = Unreliables.retryUntilSuccessAsync(200, TimeUnit.MILLISECONDS, retryPolicy, Executors.newCachedThreadPool(), () -> {
+            throw new IllegalStateException("This is the exception");
+        });
+
+        try {
+            result.get(1, TimeUnit.SECONDS);
+            fail("When retrying asynchronously, a call that always fails should complete with a timeout exception");
+        } catch (ExecutionException e) {
+            assertEquals("The future completes with a TimeoutException", TimeoutException.class, e.getCause().getClass());
+            assertEquals("The last exception is captured", "This is the exception", e.getCause().getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testRetryUntilSuccessAsyncFailsForFailuresOutsideCount() throws Exception {
+        final int[] attempt = {0};
+
+        CompletableFuture<String> result = Unreliables.retryUntilSuccessAsync(3, () -> {
+            attempt[0]++;
+            throw new IllegalStateException("This will always fail");
+        });
+
+        try {
+            result.get(1, TimeUnit.SECONDS);
+            fail("When retrying asynchronously, a call that always fails should complete with a retry failure exception");
+        } catch (ExecutionException e) {
+            assertEquals("The future completes with a RetryCountExceededException", RetryCountExceededException.class, e.getCause().getClass());
+            assertEquals("The call is attempted the given number of times", 3, attempt[0]);
+        }
+    }
+
+    @Test
+    public void testRetryUntilSuccessOnCallingThreadWithManyFailures() throws Exception {
+        Thread caller = Thread.currentThread();
+        long start = System.currentTimeMillis();
+
+        Thread executingThread = Unreliables.retryUntilSuccessOnCallingThread(500, TimeUnit.MILLISECONDS, () -> {
+            if (System.currentTimeMillis() - start < 100) {
+                throw new Exception("FAILURE");
+            }
+            return Thread.currentThread();
+        });
+
+        assertEquals("The lambda is retried on the calling thread", caller, executingThread);
+    }
+
+    @Test
+    public void testRetryUntilTrueOnCallingThreadFailsWhenOutsideTimeoutWindow() throws Exception {
+        final int[] attempt = {0};
+        long start = System.currentTimeMillis();
+
+        try {
+            Unreliables.retryUntilTrueOnCallingThread(200, TimeUnit.MILLISECONDS, () -> {
+                attempt[0]++;
+                return false;
+            });
+            fail("When retrying until true on the calling thread, a call that never returns true should throw a timeout exception");
+        } catch (TimeoutException e) {
+            // ok
+            assertTrue("Retries continue until the timeout", System.currentTimeMillis() - start >= 200);
+            Thread.sleep(50L);
+            int attemptsAtTimeout = attempt[0];
+            Thread.sleep(50L);
+            assertEquals("No attempts are made after the timeout", attemptsAtTimeout, attempt[0]);
+        }
+    }
+
+    @Test
+    public void testRetryUntilTrueOnCallingThreadStopsWhenInterrupted() throws Exception {
+        RetryPolicy retryPolicy = RetryPolicyBuilder.newBuilder()
+                                                    .withFixedBackoff(1, TimeUnit.SECONDS)
+                                                    .build();
+        long start = System.currentTimeMillis();
+
+        try {
+            Unreliables.retryUntilTrueOnCallingThread(5, TimeUnit.SECONDS, retryPolicy, () -> {
+                Thread.currentThread().interrupt();
+                return false;
+            });
+            fail("An interrupt while backing off should stop the retries");
+        } catch (TimeoutException e) {
+            fail("An interrupt is not reported as a timeout");
+        } catch (RuntimeException e) {
+            assertTrue("The cause is an InterruptedException", e.getCause() instanceof InterruptedException);
+            assertTrue("The interrupt status is restored", Thread.interrupted());
+            assertTrue("Retrying stops straight away", System.currentTimeMillis() - start < 1000);
+        }
+    }
+
+    @Test
+    public void testCountBoundedRetriesReportInterruptsLikeCallingThreadRetries() throws Exception {
+        RetryPolicy retryPolicy = RetryPolicyBuilder.newBuilder()
+                                                    .withFixedBackoff(1, TimeUnit.SECONDS)
+                                                    .build();
+        long start = System.currentTimeMillis();
+
+        try {
+            Unreliables.retryUntilSuccess(5, retryPolicy, () -> {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("This will always fail");
+            });
+            fail("An interrupt while backing off should stop the retries");
+        } catch (RetryCountExceededException e) {
+            fail("An interrupt is not reported as hitting the retry limit");
+        } catch (RuntimeException e) {
+            assertTrue("The cause is an InterruptedException", e.getCause() instanceof InterruptedException);
+            assertTrue("The interrupt status is restored", Thread.interrupted());
+        }
+
+        try {
+            Unreliables.retryUntilAllSucceed(5, retryPolicy, 10, Arrays.asList("a", "b"), items -> {
+                Thread.currentThread().interrupt();
+                return Collections.<String, String>emptyMap();
+            });
+            fail("An interrupt while backing off should stop the batch retries");
+        } catch (RetryCountExceededException e) {
+            fail("An interrupt is not reported as hitting the retry limit");
+        } catch (RuntimeException e) {
+            assertTrue("The cause is an InterruptedException", e.getCause() instanceof InterruptedException);
+            assertTrue("The interrupt status is restored", Thread.interrupted());
+        }
+        assertTrue("Retrying stops straight away", System.currentTimeMillis() - start < 1000);
+    }
+
+    @Test
+    public void testGetWithHedgingUsesFasterAttempt() throws Exception {
+        HedgePolicy hedgePolicy = HedgePolicyBuilder.newBuilder()
+                                                    .withHedgeDelay(50, TimeUnit.MILLISECONDS)
+                                                    .build();
+        AtomicInteger attempt = new AtomicInteger();
+        AtomicBoolean slowAttemptInterrupted = new AtomicBoolean();
+        long start = System.currentTimeMillis();
+
+        String result = Unreliables.getWithHedging(5, TimeUnit.SECONDS, hedgePolicy, () -> {
+            if (attempt.getAndIncrement() == 0) {
+                try {
+                    Thread.sleep(5000L);
+                } catch (InterruptedException e) {
+                    slowAttemptInterrupted.set(true);
+                    throw e;
+                }
+                return "slow";
+            }
+            return "hedged";
+        });
+
+        assertEquals("The result of the first attempt to succeed is used", "hedged", result);
+        assertTrue("The slow attempt is not waited for", System.currentTimeMillis() - start < 2000L);
+        Thread.sleep(100L);
+        assertTrue("The slow attempt is interrupted", slowAttemptInterrupted.get());
+    }
+
+    @Test
+    public void testGetWithHedgingDoesNotHedgeQuickCalls() throws Exception {
+        HedgePolicy hedgePolicy = HedgePolicyBuilder.newBuilder()
+                                                    .withHedgeDelay(50, TimeUnit.MILLISECONDS)
+                                                    .build();
+        AtomicInteger attempt = new AtomicInteger();
+
+        Unreliables.getWithHedging(1, TimeUnit.SECONDS, hedgePolicy, attempt::incrementAndGet);
+
+        Thread.sleep(100L);
+        assertEquals("Only one attempt is made when it completes within the hedge delay", 1, attempt.get());
+    }
+
+    @Test
+    public void testGetWithHedgingFailsWhenAllAttemptsFail() throws Exception {
+        HedgePolicy hedgePolicy = HedgePolicyBuilder.newBuilder()
+                                                    .withHedgeDelay(1, TimeUnit.SECONDS)
+                                                    .withMaxAttempts(3)
+                                                    .build();
+        AtomicInteger attempt = new AtomicInteger();
+
+        try {
+            Unreliables.getWithHedging(5, TimeUnit.SECONDS, hedgePolicy, () -> {
+                throw new IllegalStateException("Failure " + attempt.incrementAndGet());
+            });
+            fail("When every hedged attempt fails, an exception should be thrown");
+        } catch (RetryCountExceededException e) {
+            assertEquals("A failure starts the next attempt without waiting, up to the limit", 3, attempt.get());
+            assertEquals("The last failure is the cause", IllegalStateException.class, e.getCause().getClass());
+        }
+    }
+
+    @Test
+    public void testGetWithHedgingRespectsHedgeBudget() throws Exception {
+        RetryBudget hedgeBudget = new RetryBudget(0.1, 1);
+        HedgePolicy hedgePolicy = HedgePolicyBuilder.newBuilder()
+                                                    .withHedgeDelay(20, TimeUnit.MILLISECONDS)
+                                                    .withHedgeBudget(hedgeBudget)
+                                                    .build();
+        AtomicInteger attempts = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            Unreliables.getWithHedging(1, TimeUnit.SECONDS, hedgePolicy, () -> {
+                attempts.incrementAndGet();
+                Thread.sleep(100L);
+                return null;
+            });
+        }
+
+        assertEquals("Only one hedged attempt is allowed by the budget", 3, attempts.get());
+        assertEquals("Refused hedges are counted by the budget", 1L, hedgeBudget.getRetriesDenied());
+    }
+
+    @Test
+    public void testGetWithHedgingAsyncTimesOut() throws Exception {
+        HedgePolicy hedgePolicy = HedgePolicyBuilder.newBuilder()
+                                                    .withHedgeDelay(20, TimeUnit.MILLISECONDS)
+                                                    .build();
+
+        CompletableFuture<Object> future = Unreliables.getWithHedgingAsync(100, TimeUnit.MILLISECONDS, hedgePolicy, Executors.newCachedThreadPool(), () -> {
+            Thread.sleep(1000L);
+            return null;
+        });
+
+        try {
+            future.get();
+            fail("When no attempt completes before the timeout, the future should complete exceptionally");
+        } catch (ExecutionException e) {
+            assertEquals("The future fails with a timeout exception", TimeoutException.class, e.getCause().getClass());
+        }
+    }
+
+    @Test
+    public void testGetWithHedgingAsyncKeepsAttemptsOffTimerThread() throws Exception {
+        HedgePolicy hedgePolicy = HedgePolicyBuilder.newBuilder()
+                                                    .withHedgeDelay(20, TimeUnit.MILLISECONDS)
+                                                    .withMaxAttempts(3)
+                                                    .build();
+        List<String> attemptThreads = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger attempt = new AtomicInteger();
+
+        CompletableFuture<String> future = Unreliables.getWithHedgingAsync(2, TimeUnit.SECONDS, hedgePolicy, Runnable::run, () -> {
+            attemptThreads.add(Thread.currentThread().getName());
+            if (attempt.getAndIncrement() < 2) {
+                Thread.sleep(100L);
+                throw new IllegalStateException();
+            }
+            return "hedged";
+        });
+
+        assertEquals("A hedged attempt succeeds", "hedged", future.get(2, TimeUnit.SECONDS));
+        assertFalse("Hedged attempts are not run on the timer thread, even with a direct executor", attemptThreads.contains("ducttape-timer"));
+    }
+
+    @Test
+    public void testGetWithHedgingPreservesWinnersOwnInterrupt() throws Exception {
+        HedgePolicy hedgePolicy = HedgePolicyBuilder.newBuilder()
+                                                    .withHedgeDelay(1, TimeUnit.SECONDS)
+                                                    .build();
+        AtomicBoolean interruptedAfterAttempt = new AtomicBoolean();
+        Executor executor = runnable -> new Thread(() -> {
+            runnable.run();
+            interruptedAfterAttempt.set(Thread.currentThread().isInterrupted());
+        }).start();
+
+        CompletableFuture<String> future = Unreliables.getWithHedgingAsync(2, TimeUnit.SECONDS, hedgePolicy, executor, () -> {
+            Thread.currentThread().interrupt();
+            return "result";
+        });
+
+        assertEquals("The attempt succeeds", "result", future.get(2, TimeUnit.SECONDS));
+        Thread.sleep(100L);
+        assertTrue("An interrupt which was not raised by the hedged call is left in place", interruptedAfterAttempt.get());
+    }
+
+    @Test
+    public void testRetryUntilSuccessAbortsOnNonRetryableException() throws Exception {
+        RetryPolicy retryPolicy = RetryPolicyBuilder.newBuilder()
+                                                    .abortOn(IllegalArgumentException.class)
+                                                    .build();
+        AtomicInteger attempt = new AtomicInteger();
+        long start = System.currentTimeMillis();
+
+        try {
+            Unreliables.retryUntilSuccess(5, TimeUnit.SECONDS, retryPolicy, () -> {
+                if (attempt.incrementAndGet() < 3) {
+                    throw new IllegalStateException("Temporary failure");
+                }
+                throw new IllegalArgumentException("Permanent failure");
+            });
+            fail("When a non-retryable exception is thrown, retries should be abandoned");
+        } catch (RetryAbortedException e) {
+            assertEquals("Retryable exceptions are retried until a non-retryable one is thrown", 3, attempt.get());
+            assertEquals("The non-retryable exception is the cause", "Permanent failure", e.getCause().getMessage());
+            assertTrue("The failure is reported without waiting for the timeout", System.currentTimeMillis() - start < 1000L);
+        }
+    }
+
+    @Test
+    public void testRetryUntilSuccessWithLimitAbortsOnNonRetryableException() throws Exception {
+        RetryPolicy retryPolicy = RetryPolicyBuilder.newBuilder()
+                                                    .retryOn(IllegalStateException.class)
+                                                    .build();
+        AtomicInteger attempt = new AtomicInteger();
+
+        assertThrows("When an exception which is not listed as retryable is thrown, retries should be abandoned",
+                RetryAbortedException.class,
+                () -> {
+                    Unreliables.retryUntilSuccess(10, retryPolicy, () -> {
+                        attempt.incrementAndGet();
+                        throw new UnsupportedOperationException();
+                    });
+                });
+        assertEquals("Only one attempt is made", 1, attempt.get());
+    }
+
+    @Test
+    public void testRetryUntilSuccessRetriesRejectedResults() throws Exception {
+        RetryPolicy retryPolicy = RetryPolicyBuilder.newBuilder()
+                                                    .retryIfResult(result -> result == null)
+                                                    .build();
+        AtomicInteger attempt = new AtomicInteger();
+
+        String result = Unreliables.retryUntilSuccess(5, retryPolicy, () -> attempt.incrementAndGet() < 3 ? null : "OK");
+
+        assertEquals("Results matching the predicate are retried", "OK", result);
+        assertEquals("Each rejected result counts as an attempt", 3, attempt.get());
+    }
+
+    @Test
+    public void testRetryUntilSuccessAsyncAbortsOnNonRetryableException() throws Exception {
+        RetryPolicy retryPolicy = RetryPolicyBuilder.newBuilder()
+                                                    .abortOn(IllegalArgumentException.class)
+                                                    .build();
+
+        CompletableFuture<Object> future = Unreliables.retryUntilSuccessAsync(5, TimeUnit.SECONDS, retryPolicy, Executors.newSingleThreadExecutor(), () -> {
+            throw new IllegalArgumentException();
+        });
+
+        try {
+            future.get(1, TimeUnit.SECONDS);
+            fail("When a non-retryable exception is thrown, the future should complete exceptionally");
+        } catch (ExecutionException e) {
+            assertEquals("The future fails with a retry aborted exception", RetryAbortedException.class, e.getCause().getClass());
+        }
+    }
+
+    @Test
+    public void testRetryUntilSuccessAsyncKeepsAttemptsAndCompletionOffTimerThread() throws Exception {
+        RetryPolicy retryPolicy = RetryPolicyBuilder.newBuilder()
+                                                    .withFixedBackoff(10, TimeUnit.MILLISECONDS)
+                                                    .build();
+        List<String> attemptThreads = Collections.synchronizedList(new ArrayList<>());
+
+        CompletableFuture<Object> future = Unreliables.retryUntilSuccessAsync(300, TimeUnit.MILLISECONDS, retryPolicy, Runnable::run, () -> {
+            attemptThreads.add(Thread.currentThread().getName());
+            throw new IllegalStateException();
+        });
+        CompletableFuture<String> completionThread = future.handle((value, throwable) -> Thread.currentThread().getName());
+
+        assertTrue("Several attempts were made", completionThread.get(2, TimeUnit.SECONDS) != null && attemptThreads.size() > 1);
+        assertFalse("Retries are not run on the timer thread, even with a direct executor", attemptThreads.contains("ducttape-timer"));
+        assertFalse("The timeout does not complete the future on the timer thread", "ducttape-timer".equals(completionThread.get()));
+    }
+
+    @Test
+    public void testRetryListenerIsNotNotifiedAfterGivingUp() throws Exception {
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        RetryPolicy retryPolicy = RetryPolicyBuilder.newBuilder()
+                                                    .withListener(new RetryListener() {
+                                                        @Override
+                                                        public void onAttemptSucceeded(int attempt, long attemptNanos, long elapsedNanos) {
+                                                            events.add("succeeded");
+                                                        }
+
+                                                        @Override
+                                                        public void onGaveUp(int attempts, long elapsedNanos, Exception lastException) {
+                                                            events.add("gaveUp");
+                                                        }
+                                                    })
+                                                    .build();
+
+        assertThrows("The call times out", TimeoutException.class, () -> {
+            Unreliables.retryUntilSuccess(100, TimeUnit.MILLISECONDS, retryPolicy, () -> {
+                long stopAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300);
+                while (System.nanoTime() - stopAt < 0) {
+                    // Keep running after the timeout, ignoring interrupts
+                }
+                return "late";
+            });
+        });
+        Thread.sleep(400L);
+
+        assertEquals("An attempt which finishes after the caller gave up is not reported", Collections.singletonList("gaveUp"), events);
+    }
+
+    @Test
+    public void testRetryListenerIsNotifiedOfEachAttempt() throws Exception {
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        RetryPolicy retryPolicy = RetryPolicyBuilder.newBuilder()
+                                                    .abortOn(IllegalArgumentException.class)
+                                                    .withListener(new RetryListener() {
+                                                        @Override
+                                                        public void onAttemptStarted(int attempt) {
+                                                            events.add("started " + attempt);
+                                                        }
+
+                                                        @Override
+                                                        public void onAttemptSucceeded(int attempt, long attemptNanos, long elapsedNanos) {
+                                                            events.add("succeeded " + attempt);
+                                                        }
+
+                                                        @Override
+                                                        public void onAttemptFailed(int attempt, long attemptNanos, long elapsedNanos, Exception cause) {
+                                                            events.add("failed " + attempt + " " + cause.getMessage());
+                                                        }
+
+                                                        @Override
+                                                        public void onGaveUp(int attempts, long elapsedNanos, Exception lastException) {
+                                                            events.add("gave up after " + attempts);
+                                                        }
+                                                    })
+                                                    .build();
+        AtomicInteger attempt = new AtomicInteger();
+
+        Unreliables.retryUntilSuccess(500, TimeUnit.MILLISECONDS, retryPolicy, () -> {
+            if (attempt.incrementAndGet() < 2) {
+                throw new IllegalStateException("temporary");
+            }
+            return null;
+        });
+        assertEquals("Attempts are reported for a successful call",
+                "[started 1, failed 1 temporary, started 2, succeeded 2]", events.toString());
+
+        events.clear();
+        try {
+            Unreliables.retryUntilSuccessOnCallingThread(500, TimeUnit.MILLISECONDS, retryPolicy, () -> {
+                throw new IllegalArgumentException("permanent");
+            });
+            fail("A non-retryable exception should abandon retries");
+        } catch (RetryAbortedException e) {
+            assertEquals("Giving up is reported",
+                    "[started 1, failed 1 permanent, gave up after 1]", events.toString());
+        }
+    }
+
+    @Test
+    public void testRetryUntilAllSucceedOnlyRetriesFailedItems() throws Exception {
+        List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+        Map<Integer, Integer> failuresRemaining = new HashMap<>();
+        failuresRemaining.put(2, 1);
+        failuresRemaining.put(5, 2);
+
+        Map<Integer, String> results = Unreliables.retryUntilAllSucceed(5, RetryPolicy.DEFAULT, 3, Arrays.asList(1, 2, 3, 4, 5, 6), items -> {
+            batches.add(new ArrayList<>(items));
+            Map<Integer, String> batchResults = new HashMap<>();
+            for (Integer item : items) {
+                if (failuresRemaining.merge(item, -1, Integer::sum) < 0) {
+                    batchResults.put(item, "item " + item);
+                }
+            }
+            return batchResults;
+        });
+
+        assertEquals("Every item has a result", 6, results.size());
+        assertEquals("Results are keyed by item", "item 5", results.get(5));
+        assertEquals("Failed items from separate batches are retried together, without the items which succeeded",
+                "[[1, 2, 3], [4, 5, 6], [2, 5], [5]]", batches.toString());
+    }
+
+    @Test
+    public void testRetryUntilAllSucceedTreatsExceptionAsWholeBatchFailure() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+
+        Map<String, Integer> results = Unreliables.retryUntilAllSucceed(500, TimeUnit.MILLISECONDS, Arrays.asList("a", "b"), items -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("Batch failed");
+            }
+            Map<String, Integer> batchResults = new HashMap<>();
+            items.forEach(item -> batchResults.put(item, item.length()));
+            return batchResults;
+        });
+
+        assertEquals("The whole batch is retried after an exception", 2, calls.get());
+        assertEquals("Every item has a result", 2, results.size());
+    }
+
+    @Test
+    public void testRetryUntilAllSucceedReportsPartialResults() throws Exception {
+        try {
+            Unreliables.retryUntilAllSucceed(3, Arrays.asList("good", "bad"), items -> {
+                Map<String, String> batchResults = new HashMap<>();
+                if (items.contains("good")) {
+                    batchResults.put("good", "OK");
+                }
+                return batchResults;
+            });
+            fail("When some items never succeed, an exception should be thrown");
+        } catch (RetryCountExceededException e) {
+            BatchIncompleteException incomplete = (BatchIncompleteException) e.getCause();
+            assertEquals("The results which were obtained are reported", "OK", incomplete.getResults().get("good"));
+            assertEquals("The items which did not succeed are reported", Collections.singletonList("bad"), incomplete.getFailedItems());
+        }
+    }
+
+    @Test
+    public void testRetryUntilAllSucceedDoesNotReportExceptionFromEarlierRound() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        try {
+            Unreliables.retryUntilAllSucceed(3, Arrays.asList("good", "bad"), items -> {
+                if (calls.incrementAndGet() == 1) {
+                    throw new IllegalStateException("Batch failed");
+                }
+                Map<String, String> batchResults = new HashMap<>();
+                if (items.contains("good")) {
+                    batchResults.put("good", "OK");
+                }
+                return batchResults;
+            });
+            fail("When some items never succeed, an exception should be thrown");
+        } catch (RetryCountExceededException e) {
+            BatchIncompleteException incomplete = (BatchIncompleteException) e.getCause();
+            assertFalse("An exception from an earlier round is not reported for the last round",
+                    incomplete.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testRetryUntilAllSucceedTimesOutWithPartialResults() throws Exception {
+        try {
+            Unreliables.retryUntilAllSucceed(200, TimeUnit.MILLISECONDS, Arrays.asList("good", "bad"), items -> {
+                Thread.sleep(10L);
+                Map<String, String> batchResults = new HashMap<>();
+                if (items.contains("good")) {
+                    batchResults.put("good", "OK");
+                }
+                return batchResults;
+            });
+            fail("When some items never succeed before the timeout, a timeout exception should be thrown");
+        } catch (TimeoutException e) {
+            BatchIncompleteException incomplete = (BatchIncompleteException) e.getCause();
+            assertEquals("The results which were obtained are reported", "OK", incomplete.getResults().get("good"));
+            assertEquals("The items which did not succeed are reported", Collections.singletonList("bad"), incomplete.getFailedItems());
+        }
+    }
+
+    @Test
+    public void testRetryAllUntilSuccessRetriesConcurrently() throws Exception {
+        List<Callable<Integer>> lambdas = new ArrayList<>();
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 10; i++) {
+            final int item = i;
+            lambdas.add(() -> {
+                if (System.currentTimeMillis() - start < 200) {
+                    throw new IllegalStateException("Not ready");
+                }
+                return item;
+            });
+        }
+
+        List<Integer> results = Unreliables.retryAllUntilSuccess(2, TimeUnit.SECONDS, 4, lambdas);
+
+        assertEquals("Results are returned in the same order as the suppliers", Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), results);
+        assertTrue("Suppliers are retried concurrently rather than one after another", System.currentTimeMillis() - start < 1000L);
+    }
+
+    @Test
+    public void testRetryAllUntilTrueFailsWhenAnyTimesOut() throws Exception {
+        List<Callable<Boolean>> lambdas = Arrays.asList(() -> true, () -> false, () -> true);
+
+        assertThrows("When any callable does not return true before the timeout, a timeout exception should be thrown",
+                TimeoutException.class,
+                () -> {
+                    Unreliables.retryAllUntilTrue(200, TimeUnit.MILLISECONDS, 2, lambdas);
+                });
+    }
+
+    @Test
+    public void testRetryAllUntilTrueDoesNotBusyPoll() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        List<Callable<Boolean>> lambdas = Collections.singletonList(() -> {
+            calls.incrementAndGet();
+            return false;
+        });
+
+        assertThrows("A callable which never returns true times out", TimeoutException.class, () -> {
+            Unreliables.retryAllUntilTrue(500, TimeUnit.MILLISECONDS, 2, lambdas);
+        });
+
+        assertTrue("Each callable is checked at the poll interval, not in a tight loop", calls.get() <= 10);
+    }
+
+    @Test
+    public void testRetryAllUntilSuccessAsyncCompletesEachIndependently() throws Exception {
+        List<Callable<String>> lambdas = Arrays.asList(() -> "quick", () -> {
+            Thread.sleep(300L);
+            return "slow";
+        });
+
+        List<CompletableFuture<String>> futures = Unreliables.retryAllUntilSuccessAsync(2, TimeUnit.SECONDS, RetryPolicy.DEFAULT, 2,
+                Executors.newCachedThreadPool(), lambdas);
+
+        assertEquals("The quick supplier's result is available without waiting for the slow one", "quick", futures.get(0).get(200, TimeUnit.MILLISECONDS));
+        assertFalse("The slow supplier is still running", futures.get(1).isDone());
+        assertEquals("The slow supplier's result follows", "slow", futures.get(1).get(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRetryUntilTrueWakesOnSignal() throws Exception {
+        RetryPolicy slowPolling = RetryPolicyBuilder.newBuilder()
+                                                    .withFixedBackoff(10, TimeUnit.SECONDS)
+                                                    .build();
+        Signal signal = new Signal();
+        AtomicBoolean ready = new AtomicBoolean();
+
+        Executors.newSingleThreadScheduledExecutor().schedule(() -> {
+            ready.set(true);
+            signal.signal();
+        }, 100, TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime();
+        Unreliables.retryUntilTrue(5, TimeUnit.SECONDS, slowPolling, signal, ready::get);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue("The wait finishes when signalled, without waiting for the next poll", elapsed < 2000);
+    }
+
+    @Test
+    public void testRetryUntilTrueWithSignalFallsBackToPolling() throws Exception {
+        Signal signal = new Signal();
+        AtomicInteger calls = new AtomicInteger();
+
+        Unreliables.retryUntilTrue(5, TimeUnit.SECONDS, signal, () -> calls.incrementAndGet() >= 3);
+
+        assertEquals("The condition is polled until it holds, even without a signal", 3, calls.get());
+    }
+
+    @Test
+    public void testRetryUntilTrueWithSignalDoesNotBusyPoll() throws Exception {
+        Signal signal = new Signal();
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows("A condition which never holds times out", TimeoutException.class, () -> {
+            Unreliables.retryUntilTrue(500, TimeUnit.MILLISECONDS, signal, () -> {
+                calls.incrementAndGet();
+                return false;
+            });
+        });
+
+        assertTrue("Without a signal, the condition is only checked at the fallback poll interval", calls.get() <= 10);
+    }
+
+    @Test
+    public void testRetryUntilTrueWithSignalTimesOut() throws Exception {
+        Signal signal = new Signal();
+
+        assertThrows("A condition which never holds times out, even while being signalled", TimeoutException.class, () -> {
+            Unreliables.retryUntilTrue(200, TimeUnit.MILLISECONDS, signal, () -> {
+                signal.signal();
+                return false;
+            });
+        });
+    }
 }